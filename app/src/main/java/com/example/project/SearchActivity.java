@@ -16,13 +16,13 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.project.adapter.StockDashboardAdapter;
-import com.example.project.model.Stock;
 import com.example.project.repository.WatchlistRepository;
 import com.example.project.viewmodel.StockViewModel;
 import com.google.android.material.chip.Chip;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -123,6 +123,15 @@ public class SearchActivity extends AppCompatActivity {
         if (!viewModel.isConnected()) {
             viewModel.connect();
         }
+
+        // One observer for the whole screen; performSearch only changes the symbols
+        viewModel.getSearchResults().observe(this, matchedStocks -> {
+            if (matchedStocks != null && !matchedStocks.isEmpty()) {
+                recyclerResults.setVisibility(View.VISIBLE);
+                emptyState.setVisibility(View.GONE);
+                resultsAdapter.setStocks(matchedStocks);
+            }
+        });
     }
 
     private void setupRecyclerView() {
@@ -170,6 +179,7 @@ public class SearchActivity extends AppCompatActivity {
      */
     private void performSearch(String query) {
         if (query.isEmpty()) {
+            viewModel.setSearchSymbols(Collections.emptyList());
             // Show suggestions
             layoutSuggestions.setVisibility(View.VISIBLE);
             recyclerResults.setVisibility(View.GONE);
@@ -192,6 +202,7 @@ public class SearchActivity extends AppCompatActivity {
             if (upperQuery.matches("[A-Z]+") && upperQuery.length() <= 5) {
                 matchedSymbols = Arrays.asList(upperQuery);
             } else {
+                viewModel.setSearchSymbols(Collections.emptyList());
                 recyclerResults.setVisibility(View.GONE);
                 emptyState.setVisibility(View.VISIBLE);
                 return;
@@ -203,21 +214,7 @@ public class SearchActivity extends AppCompatActivity {
             viewModel.addStock(symbol);
         }
 
-        // ✅ แก้: Observe ข้อมูลจริงจาก ViewModel
-        List<String> finalMatchedSymbols = matchedSymbols;
-        viewModel.getStockList().observe(this, stocks -> {
-            if (stocks != null) {
-                List<Stock> matchedStocks = stocks.stream()
-                        .filter(stock -> finalMatchedSymbols.contains(stock.getSymbol()))
-                        .collect(Collectors.toList());
-
-                if (!matchedStocks.isEmpty()) {
-                    recyclerResults.setVisibility(View.VISIBLE);
-                    emptyState.setVisibility(View.GONE);
-                    resultsAdapter.setStocks(matchedStocks);
-                }
-            }
-        });
+        viewModel.setSearchSymbols(matchedSymbols);
     }
 
     /**
@@ -4,6 +4,7 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.View;
 import android.widget.ImageView;
@@ -19,17 +20,24 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.project.adapter.InsiderTransactionAdapter;
 import com.example.project.dialog.BuyStockDialog;
 import com.example.project.dialog.SellStockDialog;
-import com.example.project.model.CandleData;
+import com.example.project.model.CandleSeries;
 import com.example.project.model.InsiderTransactionResponse;
 import com.example.project.model.PortfolioItem;
 import com.example.project.model.StockQuote;
 import com.example.project.model.TimeFrame;
+import com.example.project.repository.CandleRepository;
 import com.example.project.repository.PortfolioRepository;
+import com.example.project.repository.StockRepository;
 import com.example.project.repository.WatchlistRepository;
+import com.example.project.service.CandleAggregator;
 import com.example.project.service.FinnhubApiService;
+import com.example.project.service.FinnhubRequestScheduler;
+import com.example.project.service.QuoteCache;
 import com.example.project.util.ChartHelper;
 import com.example.project.util.PriceDataGenerator;
+import com.example.project.util.PriceFormatter;
 import com.example.project.util.StockColorHelper;
+import com.example.project.util.TechnicalIndicators;
 import com.example.project.viewmodel.StockViewModel;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.data.Entry;
@@ -49,8 +57,17 @@ public class StockDetailActivity extends AppCompatActivity {
     public static final String EXTRA_CHANGE = "change";
 
     private static final long REFRESH_INTERVAL_MS = 3000;
+    // Shorter than the refresh interval so every refresh revalidates the cached quote
+    private static final long DETAIL_QUOTE_TTL_MS = 2000;
+    // Minimum time between chart redraws driven by live trades (at most 4 per second)
+    private static final long LIVE_CHART_INTERVAL_MS = 250;
     private static final String TAG = "StockDetailActivity";
 
+    // Indicator overlay labels
+    private static final String OVERLAY_SMA = "SMA 20";
+    private static final String OVERLAY_BOLLINGER_UPPER = "BB upper";
+    private static final String OVERLAY_BOLLINGER_LOWER = "BB lower";
+
     // UI Components
     private TextView symbolText;
     private TextView priceText;
@@ -80,18 +97,41 @@ public class StockDetailActivity extends AppCompatActivity {
     // Data
     private String symbol;
     private double price;
+    private long priceTime; // When price was current, epoch ms
     private double changePercent;
     private TimeFrame currentTimeFrame = TimeFrame.ONE_DAY;
 
     // Services
     private StockViewModel viewModel;
     private FinnhubApiService apiService;
+    private CandleRepository candleRepository;
     private PortfolioRepository portfolioRepository;
     private WatchlistRepository watchlistRepository;
     private Handler refreshHandler;
     private Runnable refreshRunnable;
     private StockQuote latestQuote;
 
+    // Live intraday chart
+    private StockRepository stockRepository;
+    private CandleAggregator candleAggregator;
+    private StockRepository.LiveTradeListener liveTradeListener;
+    private CandleSeries loadedCandles;
+    private long lastLiveChartUpdate = 0;
+    // Applies the trades that arrived during the throttle interval once it ends
+    private final Runnable liveChartRunnable = this::runLiveChartUpdate;
+    private boolean liveChartUpdatePending = false;
+    // What the chart currently shows, so new prices can move or extend its last point
+    private boolean chartShowsCandles = false;
+    private int displayedBarCount = 0;
+    private long displayedLastTimestamp = 0;
+    // High, low and volume of the last displayed bar; quotes only move its close
+    private double displayedLastHigh = 0;
+    private double displayedLastLow = 0;
+    private double displayedLastVolume = 0;
+    // Indicators over the displayed candles, updated with each live price
+    private TechnicalIndicators.Sma sma20;
+    private TechnicalIndicators.BollingerBands bollingerBands;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -120,6 +160,7 @@ public class StockDetailActivity extends AppCompatActivity {
         loadInsiderTransactions();
 
         startAutoRefresh();
+        startLiveChart();
     }
 
     private void extractIntentData() {
@@ -128,6 +169,8 @@ public class StockDetailActivity extends AppCompatActivity {
 
         price = getIntent().getDoubleExtra(EXTRA_PRICE, 0.0);
         if (price == 0.0) price = getIntent().getDoubleExtra("price", 0.0);
+        // The caller's price was live when the screen opened
+        priceTime = System.currentTimeMillis();
 
         changePercent = getIntent().getDoubleExtra(EXTRA_CHANGE, 0.0);
         if (changePercent == 0.0) changePercent = getIntent().getDoubleExtra("change", 0.0);
@@ -164,6 +207,10 @@ public class StockDetailActivity extends AppCompatActivity {
 
     private void setupApiService() {
         apiService = new FinnhubApiService();
+        candleRepository = CandleRepository.getInstance(this);
+        stockRepository = StockRepository.getInstance(this);
+        candleAggregator = CandleAggregator.getInstance();
+        QuoteCache.getInstance().setTtl(symbol, DETAIL_QUOTE_TTL_MS);
     }
 
     private void setupPortfolioRepository() {
@@ -188,8 +235,9 @@ public class StockDetailActivity extends AppCompatActivity {
             btnSell.setOnClickListener(v -> showSellDialog());
         }
         if (btnWatchlist != null) {
-            // Set initial button state
+            // Set initial button state, and again once the saved watchlist has loaded
             updateWatchlistIcon();
+            watchlistRepository.getWatchlistSymbols().observe(this, symbols -> updateWatchlistIcon());
 
             btnWatchlist.setOnClickListener(v -> {
                 if (symbol == null || symbol.trim().isEmpty()) {
@@ -261,7 +309,7 @@ public class StockDetailActivity extends AppCompatActivity {
             return;
         }
         double availableBalance = portfolioRepository.getCurrentBalance();
-        BuyStockDialog dialog = BuyStockDialog.newInstance(symbol, price, availableBalance);
+        BuyStockDialog dialog = BuyStockDialog.newInstance(symbol, price, priceTime, availableBalance);
         dialog.setOnBuyConfirmedListener((symbol, shares, totalCost) -> {
             Toast.makeText(this, R.string.toast_order_success, Toast.LENGTH_LONG).show();
         });
@@ -282,7 +330,7 @@ public class StockDetailActivity extends AppCompatActivity {
             return;
         }
 
-        SellStockDialog dialog = SellStockDialog.newInstance(symbol, price, ownedShares);
+        SellStockDialog dialog = SellStockDialog.newInstance(symbol, price, priceTime, ownedShares);
         dialog.setOnSellConfirmedListener((symbol, shares, totalValue) -> {
             Toast.makeText(this, getString(R.string.toast_sell_success, String.valueOf((int)shares), symbol), Toast.LENGTH_LONG).show();
         });
@@ -290,15 +338,18 @@ public class StockDetailActivity extends AppCompatActivity {
     }
 
     private void fetchQuoteData() {
-        apiService.fetchQuote(symbol, new FinnhubApiService.QuoteCallback() {
+        apiService.fetchQuote(symbol, FinnhubRequestScheduler.Priority.FOREGROUND_QUOTE,
+                new FinnhubApiService.QuoteCallback() {
             @Override
             public void onSuccess(StockQuote quote) {
                 runOnUiThread(() -> {
                     latestQuote = quote;
                     price = quote.getCurrentPrice();
+                    priceTime = quote.getTimestamp() * 1000L;
                     changePercent = quote.getPercentChange();
                     displayStockInfo();
                     displayStockInformation();
+                    updateLastChartPoint(quote);
                 });
             }
 
@@ -314,17 +365,17 @@ public class StockDetailActivity extends AppCompatActivity {
 
     private void displayStockInfo() {
         symbolText.setText(symbol);
-        priceText.setText(String.format("%.2f", price));
+        priceText.setText(PriceFormatter.formatDecimal(price));
         changeText.setText(StockColorHelper.formatChangePercent(changePercent));
         changeText.setTextColor(StockColorHelper.getStockColor(this, changePercent));
     }
 
     private void displayStockInformation() {
         if (latestQuote != null) {
-            textOpenPrice.setText(String.format("%.2f", latestQuote.getOpenPrice()));
-            textHighPrice.setText(String.format("%.2f", latestQuote.getHighPrice()));
-            textLowPrice.setText(String.format("%.2f", latestQuote.getLowPrice()));
-            textPrevClose.setText(String.format("%.2f", latestQuote.getPreviousClose()));
+            textOpenPrice.setText(PriceFormatter.formatDecimal(latestQuote.getOpenPrice()));
+            textHighPrice.setText(PriceFormatter.formatDecimal(latestQuote.getHighPrice()));
+            textLowPrice.setText(PriceFormatter.formatDecimal(latestQuote.getLowPrice()));
+            textPrevClose.setText(PriceFormatter.formatDecimal(latestQuote.getPreviousClose()));
         } else {
             textOpenPrice.setText("--");
             textHighPrice.setText("--");
@@ -339,30 +390,38 @@ public class StockDetailActivity extends AppCompatActivity {
 
     private void loadChartData() {
         showLoading();
+        loadedCandles = null;
+        chartShowsCandles = false;
 
-        apiService.fetchCandleData(symbol, currentTimeFrame, new FinnhubApiService.CandleDataCallback() {
+        TimeFrame requestedTimeFrame = currentTimeFrame;
+        candleRepository.loadCandles(symbol, requestedTimeFrame, new CandleRepository.CandleCallback() {
             @Override
-            public void onSuccess(CandleData candleData) {
-                runOnUiThread(() -> {
-                    hideLoading();
-                    updateChartWithApiData(candleData);
-                });
+            public void onCandlesLoaded(CandleSeries candles, boolean fromStore) {
+                if (isFinishing() || requestedTimeFrame != currentTimeFrame) {
+                    return; // the user has switched timeframes since
+                }
+                hideLoading();
+                loadedCandles = candles;
+                updateChartWithApiData(withLiveBars(candles));
             }
 
             @Override
             public void onError(String error) {
-                runOnUiThread(() -> {
-                    hideLoading();
-                    // ⭐ จุดที่แก้ไข: ซ่อน Error เสมอ แล้วใช้ Mock Data
-                    hideError();
-                    updateChartWithMockData();
-                });
+                if (isFinishing() || requestedTimeFrame != currentTimeFrame) {
+                    return;
+                }
+                hideLoading();
+                // ⭐ จุดที่แก้ไข: ซ่อน Error เสมอ แล้วใช้ Mock Data
+                hideError();
+                updateChartWithMockData();
             }
         });
     }
 
-    private void updateChartWithApiData(CandleData candleData) {
-        List<Entry> entries = PriceDataGenerator.convertCandleDataToEntries(candleData);
+    private void updateChartWithApiData(CandleSeries candles) {
+        // Long time frames hold far more candles than the chart has pixels
+        List<Entry> entries = PriceDataGenerator.convertCandleSeriesToEntries(
+                candles, ChartHelper.getTargetPointCount(priceChart));
 
         // ⭐ จุดที่แก้ไข: ถ้าข้อมูลว่าง ให้ซ่อน Error แล้วใช้ Mock Data แทน
         if (entries == null || entries.isEmpty()) {
@@ -373,9 +432,178 @@ public class StockDetailActivity extends AppCompatActivity {
 
         hideError();
         ChartHelper.updateChartData(priceChart, entries, changePercent, this);
+        chartShowsCandles = true;
+        displayedBarCount = candles.size();
+        displayedLastTimestamp = candles.getLastTimestamp();
+        int last = candles.size() - 1;
+        displayedLastHigh = candles.getHigh(last);
+        displayedLastLow = candles.getLow(last);
+        displayedLastVolume = candles.getVolume(last);
+        showIndicatorOverlays(candles);
+    }
+
+    /**
+     * Computes SMA 20 and Bollinger bands over the displayed candles and draws them.
+     */
+    private void showIndicatorOverlays(CandleSeries candles) {
+        sma20 = new TechnicalIndicators.Sma(20);
+        bollingerBands = new TechnicalIndicators.BollingerBands();
+        double[] sma = TechnicalIndicators.compute(candles, sma20)[0];
+        double[][] bands = TechnicalIndicators.compute(candles, bollingerBands);
+
+        int maxPoints = ChartHelper.getTargetPointCount(priceChart);
+        int smaColor = getResources().getColor(R.color.accentBlue, null);
+        int bandColor = getResources().getColor(R.color.text_secondary, null);
+        ChartHelper.setOverlay(priceChart, OVERLAY_SMA,
+                PriceDataGenerator.convertValuesToEntries(sma, maxPoints), smaColor);
+        ChartHelper.setOverlay(priceChart, OVERLAY_BOLLINGER_UPPER,
+                PriceDataGenerator.convertValuesToEntries(bands[TechnicalIndicators.BollingerBands.UPPER], maxPoints), bandColor);
+        ChartHelper.setOverlay(priceChart, OVERLAY_BOLLINGER_LOWER,
+                PriceDataGenerator.convertValuesToEntries(bands[TechnicalIndicators.BollingerBands.LOWER], maxPoints), bandColor);
+    }
+
+    /**
+     * Feeds a new or revised last bar to the indicators and moves their overlay points.
+     * Call after the price line accepted the bar, so the indicators never run ahead of it.
+     */
+    private void updateIndicatorOverlays(boolean newBar, int x, long timestamp,
+                                         double high, double low, double close, double volume) {
+        if (sma20 == null || bollingerBands == null) {
+            return;
+        }
+        if (newBar) {
+            sma20.addBar(timestamp, high, low, close, volume);
+            bollingerBands.addBar(timestamp, high, low, close, volume);
+        } else {
+            sma20.updateLastBar(timestamp, high, low, close, volume);
+            bollingerBands.updateLastBar(timestamp, high, low, close, volume);
+        }
+
+        if (sma20.isReady()) {
+            ChartHelper.appendOrUpdateOverlay(priceChart, OVERLAY_SMA, x, (float) sma20.getValue());
+        }
+        if (bollingerBands.isReady()) {
+            ChartHelper.appendOrUpdateOverlay(priceChart, OVERLAY_BOLLINGER_UPPER, x,
+                    (float) bollingerBands.getValue(TechnicalIndicators.BollingerBands.UPPER));
+            ChartHelper.appendOrUpdateOverlay(priceChart, OVERLAY_BOLLINGER_LOWER, x,
+                    (float) bollingerBands.getValue(TechnicalIndicators.BollingerBands.LOWER));
+        }
+    }
+
+    /**
+     * Moves the last chart point to the quoted price when the quote falls in the last
+     * candle's period, without rebuilding the data set.
+     */
+    private void updateLastChartPoint(StockQuote quote) {
+        if (!chartShowsCandles || quote.getCurrentPrice() <= 0) {
+            return;
+        }
+        long sinceLastBar = quote.getTimestamp() - displayedLastTimestamp;
+        if (sinceLastBar < 0 || sinceLastBar >= currentTimeFrame.getResolutionSeconds()) {
+            return;
+        }
+        double quotePrice = quote.getCurrentPrice();
+        int x = displayedBarCount - 1;
+        if (!ChartHelper.appendOrUpdateLast(priceChart, x, (float) quotePrice, changePercent, this)) {
+            return;
+        }
+        // The quote is the bar's latest close; its volume isn't known here
+        displayedLastHigh = Math.max(displayedLastHigh, quotePrice);
+        displayedLastLow = Math.min(displayedLastLow, quotePrice);
+        updateIndicatorOverlays(false, x, displayedLastTimestamp,
+                displayedLastHigh, displayedLastLow, quotePrice, displayedLastVolume);
+        ChartHelper.refreshLiveData(priceChart);
+    }
+
+    /**
+     * Applies the bar in progress from the trade feed: updates the last chart point, or
+     * appends one when a new bar has started.
+     */
+    private void updateChartWithLiveBar() {
+        if (!chartShowsCandles) {
+            return;
+        }
+        CandleSeries bar = candleAggregator.getLatestBar(symbol, currentTimeFrame.getResolution());
+        if (bar.size() == 0 || bar.getTimestamp(0) < displayedLastTimestamp) {
+            return;
+        }
+
+        boolean newBar = bar.getTimestamp(0) > displayedLastTimestamp;
+        int x = newBar ? displayedBarCount : displayedBarCount - 1;
+        if (!ChartHelper.appendOrUpdateLast(priceChart, x, (float) bar.getClose(0), changePercent, this)) {
+            return;
+        }
+        if (newBar) {
+            displayedBarCount++;
+            displayedLastTimestamp = bar.getTimestamp(0);
+        }
+        displayedLastHigh = bar.getHigh(0);
+        displayedLastLow = bar.getLow(0);
+        displayedLastVolume = bar.getVolume(0);
+        updateIndicatorOverlays(newBar, x, bar.getTimestamp(0),
+                bar.getHigh(0), bar.getLow(0), bar.getClose(0), bar.getVolume(0));
+        ChartHelper.refreshLiveData(priceChart);
+    }
+
+    /**
+     * Appends the bars built from live trades to fetched intraday candles.
+     */
+    private CandleSeries withLiveBars(CandleSeries candles) {
+        String resolution = currentTimeFrame.getResolution();
+        if (!currentTimeFrame.isIntraday() || !CandleAggregator.isSupported(resolution)) {
+            return candles;
+        }
+        return candleAggregator.merge(candles, symbol, resolution);
+    }
+
+    private void startLiveChart() {
+        if (symbol == null || symbol.trim().isEmpty()) {
+            return;
+        }
+
+        liveTradeListener = (tradeSymbol, tradePrice, timestamp) -> {
+            if (!tradeSymbol.equalsIgnoreCase(symbol) || loadedCandles == null
+                    || !currentTimeFrame.isIntraday()) {
+                return;
+            }
+            if (liveChartUpdatePending) {
+                return;
+            }
+            long wait = lastLiveChartUpdate + LIVE_CHART_INTERVAL_MS - SystemClock.uptimeMillis();
+            if (wait > 0) {
+                // Redraw once the interval is over, so the last trade is never left off the chart
+                liveChartUpdatePending = true;
+                refreshHandler.postDelayed(liveChartRunnable, wait);
+                return;
+            }
+            runLiveChartUpdate();
+        };
+        stockRepository.watchSymbol(symbol, liveTradeListener);
+    }
+
+    private void runLiveChartUpdate() {
+        liveChartUpdatePending = false;
+        lastLiveChartUpdate = SystemClock.uptimeMillis();
+        if (loadedCandles != null && currentTimeFrame.isIntraday()) {
+            updateChartWithLiveBar();
+        }
+    }
+
+    private void stopLiveChart() {
+        if (refreshHandler != null) {
+            refreshHandler.removeCallbacks(liveChartRunnable);
+            liveChartUpdatePending = false;
+        }
+        if (liveTradeListener != null) {
+            stockRepository.unwatchSymbol(symbol, liveTradeListener);
+            liveTradeListener = null;
+        }
     }
 
     private void updateChartWithMockData() {
+        chartShowsCandles = false;
+        sma20 = null;
+        bollingerBands = null;
         List<Entry> entries = PriceDataGenerator.generateMockPriceData(price, changePercent);
         ChartHelper.updateChartData(priceChart, entries, changePercent, this);
     }
@@ -488,8 +716,10 @@ public class StockDetailActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
         stopAutoRefresh();
+        stopLiveChart();
         if (apiService != null) {
             apiService.cancelAllRequests();
         }
+        QuoteCache.getInstance().clearTtl(symbol);
     }
 }
\ No newline at end of file
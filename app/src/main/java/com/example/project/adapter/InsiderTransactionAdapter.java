@@ -9,25 +9,48 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.project.R;
 import com.example.project.model.InsiderTransaction;
 
 import java.text.NumberFormat;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 /**
- * Adapter for displaying insider transactions in a RecyclerView
+ * Adapter for displaying insider transactions in a RecyclerView.
+ * Lists are diffed off the main thread, so a refresh only inserts the new filings.
  */
-public class InsiderTransactionAdapter extends RecyclerView.Adapter<InsiderTransactionAdapter.ViewHolder> {
+public class InsiderTransactionAdapter extends ListAdapter<InsiderTransaction, InsiderTransactionAdapter.ViewHolder> {
+
+    /**
+     * Finnhub sends no id; a filing is identified by insider, date and share counts
+     */
+    private static final DiffUtil.ItemCallback<InsiderTransaction> DIFF_CALLBACK = new DiffUtil.ItemCallback<InsiderTransaction>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull InsiderTransaction oldItem, @NonNull InsiderTransaction newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getTransactionDate(), newItem.getTransactionDate())
+                    && oldItem.getChange() == newItem.getChange()
+                    && oldItem.getShare() == newItem.getShare();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull InsiderTransaction oldItem, @NonNull InsiderTransaction newItem) {
+            return Objects.equals(oldItem.getFilingDate(), newItem.getFilingDate())
+                    && Objects.equals(oldItem.getTransactionCode(), newItem.getTransactionCode())
+                    && oldItem.getTransactionPrice() == newItem.getTransactionPrice();
+        }
+    };
 
-    private List<InsiderTransaction> transactions = new ArrayList<>();
     private Context context;
 
     public InsiderTransactionAdapter() {
+        super(DIFF_CALLBACK);
     }
 
     @NonNull
@@ -40,21 +63,14 @@ public class InsiderTransactionAdapter extends RecyclerView.Adapter<InsiderTrans
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        InsiderTransaction transaction = transactions.get(position);
-        holder.bind(transaction);
-    }
-
-    @Override
-    public int getItemCount() {
-        return transactions.size();
+        holder.bind(getItem(position));
     }
 
     /**
      * Update the list of transactions
      */
     public void setTransactions(List<InsiderTransaction> newTransactions) {
-        this.transactions = newTransactions != null ? newTransactions : new ArrayList<>();
-        notifyDataSetChanged();
+        submitList(newTransactions);
     }
 
     /**
@@ -7,29 +7,70 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.project.R;
 import com.example.project.model.PortfolioItem;
+import com.example.project.util.FormattedValue;
+import com.example.project.util.PriceFormatter;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Adapter for displaying portfolio holdings
+ * Adapter for displaying portfolio holdings.
+ * Diffed off the main thread by symbol; a price update only rebinds the value and
+ * profit/loss of the holdings it moved.
  */
-public class PortfolioAdapter extends RecyclerView.Adapter<PortfolioAdapter.ViewHolder> {
+public class PortfolioAdapter extends ListAdapter<PortfolioItem, PortfolioAdapter.ViewHolder> {
+    private static final Object PAYLOAD_PRICE = new Object();
+
+    private static final DiffUtil.ItemCallback<PortfolioItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<PortfolioItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull PortfolioItem oldItem, @NonNull PortfolioItem newItem) {
+            return oldItem.getSymbol().equals(newItem.getSymbol());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull PortfolioItem oldItem, @NonNull PortfolioItem newItem) {
+            return oldItem.getShares() == newItem.getShares()
+                    && oldItem.getAverageCost() == newItem.getAverageCost()
+                    && oldItem.getTotalInvested() == newItem.getTotalInvested()
+                    && oldItem.getCurrentPrice() == newItem.getCurrentPrice();
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull PortfolioItem oldItem, @NonNull PortfolioItem newItem) {
+            // A trade changes the position itself and needs a full bind
+            boolean samePosition = oldItem.getShares() == newItem.getShares()
+                    && oldItem.getAverageCost() == newItem.getAverageCost();
+            return samePosition ? PAYLOAD_PRICE : null;
+        }
+    };
 
-    private List<PortfolioItem> portfolioItems = new ArrayList<>();
     private OnPortfolioItemClickListener clickListener;
 
     public interface OnPortfolioItemClickListener {
         void onPortfolioItemClick(PortfolioItem item);
     }
 
+    public PortfolioAdapter() {
+        super(DIFF_CALLBACK);
+    }
+
+    /**
+     * Shows the holdings. They are copied, since the repository updates prices in place.
+     */
     public void setPortfolioItems(List<PortfolioItem> items) {
-        this.portfolioItems = items != null ? items : new ArrayList<>();
-        notifyDataSetChanged();
+        List<PortfolioItem> copies = new ArrayList<>(items != null ? items.size() : 0);
+        if (items != null) {
+            for (PortfolioItem item : items) {
+                copies.add(new PortfolioItem(item));
+            }
+        }
+        submitList(copies);
     }
 
     public void setOnPortfolioItemClickListener(OnPortfolioItemClickListener listener) {
@@ -46,13 +87,16 @@ public class PortfolioAdapter extends RecyclerView.Adapter<PortfolioAdapter.View
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        PortfolioItem item = portfolioItems.get(position);
-        holder.bind(item);
+        holder.bind(getItem(position));
     }
 
     @Override
-    public int getItemCount() {
-        return portfolioItems.size();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_PRICE)) {
+            holder.bindPrice(getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
@@ -62,6 +106,12 @@ public class PortfolioAdapter extends RecyclerView.Adapter<PortfolioAdapter.View
         private final TextView avgCostText;
         private final TextView profitLossText;
         private final TextView profitLossPercentText;
+        // Last texts shown, kept across lists; only the price-dependent ones change between ticks
+        private final FormattedValue shares = new FormattedValue();
+        private final FormattedValue averageCost = new FormattedValue();
+        private final FormattedValue currentValue = new FormattedValue();
+        private final FormattedValue profitLoss = new FormattedValue();
+        private final FormattedValue profitLossPercent = new FormattedValue();
 
         public ViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -75,7 +125,7 @@ public class PortfolioAdapter extends RecyclerView.Adapter<PortfolioAdapter.View
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && clickListener != null) {
-                    clickListener.onPortfolioItemClick(portfolioItems.get(position));
+                    clickListener.onPortfolioItemClick(getItem(position));
                 }
             });
         }
@@ -85,17 +135,22 @@ public class PortfolioAdapter extends RecyclerView.Adapter<PortfolioAdapter.View
             symbolText.setText(item.getSymbol());
 
             // Set shares
-            sharesText.setText(item.getFormattedShares() + " shares");
-
-            // Set current value
-            currentValueText.setText(item.getFormattedCurrentValue());
+            sharesText.setText(shares.get(item.getShares(), value -> PriceFormatter.formatShares(value) + " shares"));
 
             // Set average cost
-            avgCostText.setText(item.getFormattedAverageCost());
+            avgCostText.setText(averageCost.get(item.getAverageCost(), PriceFormatter::formatPrice));
+
+            bindPrice(item);
+        }
+
+        void bindPrice(PortfolioItem item) {
+            // Set current value
+            currentValueText.setText(currentValue.get(item.getCurrentValue(), PriceFormatter::formatPrice));
 
             // Set profit/loss
-            profitLossText.setText(item.getFormattedProfitLoss());
-            profitLossPercentText.setText("(" + item.getFormattedProfitLossPercent() + ")");
+            profitLossText.setText(profitLoss.get(item.getProfitLoss(), PriceFormatter::formatSignedPrice));
+            profitLossPercentText.setText(profitLossPercent.get(item.getProfitLossPercent(),
+                    value -> "(" + PriceFormatter.formatSignedPercent(value) + ")"));
 
             // Set profit/loss color
             int profitLossColor = item.isProfitable() ?
@@ -8,19 +8,47 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.project.R;
 import com.example.project.model.Stock;
+import com.example.project.util.FormattedValue;
+import com.example.project.util.PriceFormatter;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * RecyclerView adapter for displaying stock items
+ * RecyclerView adapter for displaying stock items.
+ * Lists are diffed off the main thread by symbol; a price tick only rebinds the price
+ * and change of the rows that moved.
  */
-public class StockAdapter extends RecyclerView.Adapter<StockAdapter.StockViewHolder> {
-    private List<Stock> stockList;
+public class StockAdapter extends ListAdapter<Stock, StockAdapter.StockViewHolder> {
+    static final Object PAYLOAD_PRICE = new Object();
+
+    /**
+     * Same symbol = same row; only the price fields of a row can change
+     */
+    static final DiffUtil.ItemCallback<Stock> DIFF_CALLBACK = new DiffUtil.ItemCallback<Stock>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Stock oldItem, @NonNull Stock newItem) {
+            return oldItem.getSymbol().equals(newItem.getSymbol());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Stock oldItem, @NonNull Stock newItem) {
+            return oldItem.getCurrentPrice() == newItem.getCurrentPrice()
+                    && oldItem.getChangePercent() == newItem.getChangePercent();
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Stock oldItem, @NonNull Stock newItem) {
+            return PAYLOAD_PRICE;
+        }
+    };
+
     private OnStockRemoveListener removeListener;
     private OnStockClickListener clickListener; // ✅ แก้: เพิ่ม click listener
 
@@ -34,7 +62,7 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.StockViewHol
     }
 
     public StockAdapter() {
-        this.stockList = new ArrayList<>();
+        super(DIFF_CALLBACK);
     }
 
     public void setOnStockRemoveListener(OnStockRemoveListener listener) {
@@ -46,9 +74,22 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.StockViewHol
         this.clickListener = listener;
     }
 
+    /**
+     * Shows a list of stocks. The stocks are copied, since the repository keeps updating
+     * the originals in place and the diff needs the old values.
+     */
     public void setStockList(List<Stock> stocks) {
-        this.stockList = stocks != null ? stocks : new ArrayList<>();
-        notifyDataSetChanged();
+        submitList(copyOf(stocks));
+    }
+
+    static List<Stock> copyOf(List<Stock> stocks) {
+        List<Stock> copies = new ArrayList<>(stocks != null ? stocks.size() : 0);
+        if (stocks != null) {
+            for (Stock stock : stocks) {
+                copies.add(new Stock(stock));
+            }
+        }
+        return copies;
     }
 
     @NonNull
@@ -61,13 +102,16 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.StockViewHol
 
     @Override
     public void onBindViewHolder(@NonNull StockViewHolder holder, int position) {
-        Stock stock = stockList.get(position);
-        holder.bind(stock);
+        holder.bind(getItem(position));
     }
 
     @Override
-    public int getItemCount() {
-        return stockList.size();
+    public void onBindViewHolder(@NonNull StockViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_PRICE)) {
+            holder.bindPrice(getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
 
     class StockViewHolder extends RecyclerView.ViewHolder {
@@ -75,6 +119,9 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.StockViewHol
         private final TextView priceTextView;
         private final TextView changeTextView;
         private final ImageButton removeButton;
+        // Last texts shown, kept across lists so an unchanged value isn't formatted again
+        private final FormattedValue price = new FormattedValue();
+        private final FormattedValue change = new FormattedValue();
 
         public StockViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -82,15 +129,34 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.StockViewHol
             priceTextView = itemView.findViewById(R.id.text_price);
             changeTextView = itemView.findViewById(R.id.text_change);
             removeButton = itemView.findViewById(R.id.button_remove);
+
+            // ✅ แก้: Handle item click - เปิดหน้ารายละเอียด
+            itemView.setOnClickListener(v -> {
+                int position = getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION && clickListener != null) {
+                    clickListener.onStockClick(getItem(position));
+                }
+            });
+
+            // Handle remove button click
+            removeButton.setOnClickListener(v -> {
+                int position = getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION && removeListener != null) {
+                    removeListener.onStockRemove(getItem(position));
+                }
+            });
         }
 
         public void bind(Stock stock) {
             symbolTextView.setText(stock.getSymbol());
-            priceTextView.setText(stock.getFormattedPrice());
+            bindPrice(stock);
+        }
+
+        void bindPrice(Stock stock) {
+            priceTextView.setText(price.get(stock.getCurrentPrice(), PriceFormatter::formatPrice));
 
             // Format change with arrow
-            String arrow = stock.isPositiveChange() ? "↑" : "↓";
-            changeTextView.setText(arrow + " " + stock.getFormattedChangePercent());
+            changeTextView.setText(change.get(stock.getChangePercent(), PriceFormatter::formatChangeWithArrow));
 
             // Set color based on positive/negative change (minimalist - text only)
             if (stock.isPositiveChange()) {
@@ -98,20 +164,6 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.StockViewHol
             } else {
                 changeTextView.setTextColor(Color.parseColor("#EF4444"));  // negativeRed
             }
-
-            // ✅ แก้: Handle item click - เปิดหน้ารายละเอียด
-            itemView.setOnClickListener(v -> {
-                if (clickListener != null) {
-                    clickListener.onStockClick(stock);
-                }
-            });
-
-            // Handle remove button click
-            removeButton.setOnClickListener(v -> {
-                if (removeListener != null) {
-                    removeListener.onStockRemove(stock);
-                }
-            });
         }
     }
 }
\ No newline at end of file
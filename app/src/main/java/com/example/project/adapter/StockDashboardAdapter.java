@@ -7,11 +7,14 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.project.R;
 import com.example.project.model.Stock;
 import com.example.project.util.ChartHelper;
+import com.example.project.util.FormattedValue;
+import com.example.project.util.PriceFormatter;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.data.Entry;
 
@@ -21,9 +24,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
-public class StockDashboardAdapter extends RecyclerView.Adapter<StockDashboardAdapter.ViewHolder> {
+/**
+ * Dashboard cards with a sparkline per stock. Diffed off the main thread like
+ * {@link StockAdapter}; a price tick only rebinds the price, change and sparkline.
+ */
+public class StockDashboardAdapter extends ListAdapter<Stock, StockDashboardAdapter.ViewHolder> {
 
-    private List<Stock> stocks = new ArrayList<>();
     private OnStockClickListener clickListener;
 
     // Company names map
@@ -43,13 +49,16 @@ public class StockDashboardAdapter extends RecyclerView.Adapter<StockDashboardAd
         void onStockClick(Stock stock);
     }
 
+    public StockDashboardAdapter() {
+        super(StockAdapter.DIFF_CALLBACK);
+    }
+
     public void setOnStockClickListener(OnStockClickListener listener) {
         this.clickListener = listener;
     }
 
     public void setStocks(List<Stock> stocks) {
-        this.stocks = stocks != null ? stocks : new ArrayList<>();
-        notifyDataSetChanged();
+        submitList(StockAdapter.copyOf(stocks));
     }
 
     @NonNull
@@ -62,13 +71,16 @@ public class StockDashboardAdapter extends RecyclerView.Adapter<StockDashboardAd
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Stock stock = stocks.get(position);
-        holder.bind(stock);
+        holder.bind(getItem(position));
     }
 
     @Override
-    public int getItemCount() {
-        return stocks.size();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(StockAdapter.PAYLOAD_PRICE)) {
+            holder.bindPrice(getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
@@ -77,6 +89,9 @@ public class StockDashboardAdapter extends RecyclerView.Adapter<StockDashboardAd
         private final TextView priceText;
         private final TextView changeText;
         private final LineChart miniChart;
+        // Last texts shown, kept across lists so an unchanged value isn't formatted again
+        private final FormattedValue price = new FormattedValue();
+        private final FormattedValue change = new FormattedValue();
 
         public ViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -92,7 +107,7 @@ public class StockDashboardAdapter extends RecyclerView.Adapter<StockDashboardAd
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && clickListener != null) {
-                    clickListener.onStockClick(stocks.get(position));
+                    clickListener.onStockClick(getItem(position));
                 }
             });
         }
@@ -106,12 +121,15 @@ public class StockDashboardAdapter extends RecyclerView.Adapter<StockDashboardAd
             // Set company name
             companyText.setText(COMPANY_NAMES.getOrDefault(symbol, "Company"));
 
+            bindPrice(stock);
+        }
+
+        void bindPrice(Stock stock) {
             // Set price
-            priceText.setText(stock.getFormattedPrice());
+            priceText.setText(price.get(stock.getCurrentPrice(), PriceFormatter::formatPrice));
 
             // Set change with arrow
-            String arrow = stock.isPositiveChange() ? "↑" : "↓";
-            changeText.setText(arrow + " " + stock.getFormattedChangePercent());
+            changeText.setText(change.get(stock.getChangePercent(), PriceFormatter::formatChangeWithArrow));
 
             // Set color
             int color = stock.isPositiveChange() ?
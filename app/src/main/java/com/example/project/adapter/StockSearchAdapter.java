@@ -6,29 +6,45 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.project.R;
 import com.google.android.material.card.MaterialCardView;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Adapter for displaying stock search results
+ * Adapter for displaying stock search results.
+ * Results are diffed off the main thread, so refining a query only adds and removes rows.
  */
-public class StockSearchAdapter extends RecyclerView.Adapter<StockSearchAdapter.ViewHolder> {
+public class StockSearchAdapter extends ListAdapter<String, StockSearchAdapter.ViewHolder> {
+
+    private static final DiffUtil.ItemCallback<String> DIFF_CALLBACK = new DiffUtil.ItemCallback<String>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull String oldItem, @NonNull String newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull String oldItem, @NonNull String newItem) {
+            return true;
+        }
+    };
 
-    private List<String> stocks = new ArrayList<>();
     private OnStockClickListener listener;
 
     public interface OnStockClickListener {
         void onStockClick(String symbol);
     }
 
+    public StockSearchAdapter() {
+        super(DIFF_CALLBACK);
+    }
+
     public void setStocks(List<String> stocks) {
-        this.stocks = stocks;
-        notifyDataSetChanged();
+        submitList(stocks);
     }
 
     public void setOnStockClickListener(OnStockClickListener listener) {
@@ -45,13 +61,7 @@ public class StockSearchAdapter extends RecyclerView.Adapter<StockSearchAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        String symbol = stocks.get(position);
-        holder.bind(symbol);
-    }
-
-    @Override
-    public int getItemCount() {
-        return stocks.size();
+        holder.bind(getItem(position));
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
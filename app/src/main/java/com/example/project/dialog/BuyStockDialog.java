@@ -15,7 +15,9 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.DialogFragment;
 
 import com.example.project.R;
+import com.example.project.model.StockQuote;
 import com.example.project.repository.PortfolioRepository;
+import com.example.project.service.QuoteCache;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
 
@@ -26,6 +28,7 @@ public class BuyStockDialog extends DialogFragment {
 
     private String symbol;
     private double currentPrice;
+    private long priceTime;
     private double availableBalance;
 
     private TextView symbolText;
@@ -46,11 +49,12 @@ public class BuyStockDialog extends DialogFragment {
     /**
      * Create new instance of BuyStockDialog
      */
-    public static BuyStockDialog newInstance(String symbol, double currentPrice, double availableBalance) {
+    public static BuyStockDialog newInstance(String symbol, double currentPrice, long priceTime, double availableBalance) {
         BuyStockDialog dialog = new BuyStockDialog();
         Bundle args = new Bundle();
         args.putString("symbol", symbol);
         args.putDouble("price", currentPrice);
+        args.putLong("priceTime", priceTime);
         args.putDouble("balance", availableBalance);
         dialog.setArguments(args);
         return dialog;
@@ -63,9 +67,16 @@ public class BuyStockDialog extends DialogFragment {
         if (getArguments() != null) {
             symbol = getArguments().getString("symbol");
             currentPrice = getArguments().getDouble("price");
+            priceTime = getArguments().getLong("priceTime");
             availableBalance = getArguments().getDouble("balance");
         }
 
+        // Use the cached quote only if it is newer than the passed-in price
+        StockQuote cachedQuote = QuoteCache.getInstance().peekNewerThan(symbol, priceTime);
+        if (cachedQuote != null) {
+            currentPrice = cachedQuote.getCurrentPrice();
+        }
+
         // Initialize repository
         portfolioRepository = PortfolioRepository.getInstance(requireContext());
 
@@ -14,7 +14,9 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.DialogFragment;
 
 import com.example.project.R;
+import com.example.project.model.StockQuote;
 import com.example.project.repository.PortfolioRepository;
+import com.example.project.service.QuoteCache;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
 
@@ -25,6 +27,7 @@ public class SellStockDialog extends DialogFragment {
 
     private String symbol;
     private double currentPrice;
+    private long priceTime;
     private double ownedShares;
 
     private TextView symbolText;
@@ -42,11 +45,12 @@ public class SellStockDialog extends DialogFragment {
         void onSellConfirmed(String symbol, double shares, double totalValue);
     }
 
-    public static SellStockDialog newInstance(String symbol, double currentPrice, double ownedShares) {
+    public static SellStockDialog newInstance(String symbol, double currentPrice, long priceTime, double ownedShares) {
         SellStockDialog dialog = new SellStockDialog();
         Bundle args = new Bundle();
         args.putString("symbol", symbol);
         args.putDouble("price", currentPrice);
+        args.putLong("priceTime", priceTime);
         args.putDouble("ownedShares", ownedShares);
         dialog.setArguments(args);
         return dialog;
@@ -58,9 +62,16 @@ public class SellStockDialog extends DialogFragment {
         if (getArguments() != null) {
             symbol = getArguments().getString("symbol");
             currentPrice = getArguments().getDouble("price");
+            priceTime = getArguments().getLong("priceTime");
             ownedShares = getArguments().getDouble("ownedShares");
         }
 
+        // Use the cached quote only if it is newer than the passed-in price
+        StockQuote cachedQuote = QuoteCache.getInstance().peekNewerThan(symbol, priceTime);
+        if (cachedQuote != null) {
+            currentPrice = cachedQuote.getCurrentPrice();
+        }
+
         portfolioRepository = PortfolioRepository.getInstance(requireContext());
 
         AlertDialog.Builder builder = new AlertDialog.Builder(requireActivity());
@@ -29,9 +29,7 @@ import com.example.project.repository.WatchlistRepository;
 import com.example.project.viewmodel.StockViewModel;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class DashboardFragment extends Fragment {
 
@@ -58,18 +56,10 @@ public class DashboardFragment extends Fragment {
     private TextView marketStatusText;
     private TextView marketSessionText;
 
-    private Handler refreshHandler;
-    private Runnable refreshRunnable;
     private Handler marketStatusRefreshHandler;
     private Runnable marketStatusRefreshRunnable;
 
     private WatchlistRepository watchlistRepository;
-    private List<String> watchlistSymbols = new ArrayList<>();
-    private List<Stock> latestStockList = new ArrayList<>();
-
-    // Predefined popular stocks
-    private static final List<String> TRENDING_STOCKS = Arrays.asList("AAPL", "TSLA", "GOOGL", "MSFT");
-    private static final List<String> POPULAR_STOCKS = Arrays.asList("AMZN", "META", "NVDA", "NFLX");
 
     @Nullable
     @Override
@@ -84,10 +74,8 @@ public class DashboardFragment extends Fragment {
         initViews(view);
         setupViewModel();
         setupRecyclerViews();
-        observeWatchlist();
         loadStocks();
         loadMarketStatus();
-        startAutoRefresh();
         startMarketStatusRefresh();
     }
 
@@ -167,65 +155,31 @@ public class DashboardFragment extends Fragment {
         }
 
         // Add default stocks for trending and popular sections
-        for (String symbol : TRENDING_STOCKS) {
+        for (String symbol : StockViewModel.TRENDING_STOCKS) {
             viewModel.addStock(symbol);
         }
-        for (String symbol : POPULAR_STOCKS) {
+        for (String symbol : StockViewModel.POPULAR_STOCKS) {
             viewModel.addStock(symbol);
         }
 
-        // Observe stock updates
-        viewModel.getStockList().observe(getViewLifecycleOwner(), stocks -> {
-            if (stocks == null) {
-                latestStockList = new ArrayList<>();
-            } else {
-                latestStockList = stocks;
-            }
-
-            updateWatchlistSection();
-
-            // Filter and update adapters
-            trendingAdapter.setStocks(filterStocks(latestStockList, TRENDING_STOCKS));
-            popularAdapter.setStocks(filterStocks(latestStockList, POPULAR_STOCKS));
-        });
+        // Each section observes its own projection once; quotes keep them current
+        viewModel.getTrendingStocks().observe(getViewLifecycleOwner(), trendingAdapter::setStocks);
+        viewModel.getPopularStocks().observe(getViewLifecycleOwner(), popularAdapter::setStocks);
+        viewModel.getWatchlistPreview().observe(getViewLifecycleOwner(), this::updateWatchlistSection);
     }
 
-    private void observeWatchlist() {
-        watchlistRepository.getWatchlistSymbols().observe(getViewLifecycleOwner(), symbols -> {
-            watchlistSymbols = symbols != null ? symbols : new ArrayList<>();
-            updateWatchlistSection();
-        });
-    }
-
-    private void updateWatchlistSection() {
+    private void updateWatchlistSection(List<Stock> watchlistStocks) {
         if (watchlistSection == null) return;
 
-        if (watchlistSymbols == null || watchlistSymbols.isEmpty()) {
+        if (watchlistStocks == null || watchlistStocks.isEmpty()) {
             watchlistSection.setVisibility(View.GONE);
             watchlistAdapter.setStockList(new ArrayList<>());
-            return;
-        }
-
-        // ✅ แก้: จำกัดแสดงสูงสุด 4 อัน
-        List<Stock> watchlistStocks = latestStockList.stream()
-                .filter(stock -> watchlistSymbols.contains(stock.getSymbol()))
-                .limit(4)  // จำกัดแสดงสูงสุด 4 อัน
-                .collect(Collectors.toList());
-
-        if (watchlistStocks.isEmpty()) {
-            watchlistSection.setVisibility(View.GONE);
         } else {
             watchlistSection.setVisibility(View.VISIBLE);
             watchlistAdapter.setStockList(watchlistStocks);
         }
     }
 
-    private List<Stock> filterStocks(List<Stock> allStocks, List<String> symbols) {
-        return allStocks.stream()
-                .filter(stock -> symbols.contains(stock.getSymbol()))
-                .collect(Collectors.toList());
-    }
-
     private void openStockDetail(Stock stock) {
         Intent intent = new Intent(getContext(), StockDetailActivity.class);
         intent.putExtra("symbol", stock.getSymbol());
@@ -239,25 +193,6 @@ public class DashboardFragment extends Fragment {
         startActivity(intent);
     }
 
-    private void startAutoRefresh() {
-        refreshHandler = new Handler(Looper.getMainLooper());
-        refreshRunnable = new Runnable() {
-            @Override
-            public void run() {
-                // Refresh stock data
-                viewModel.getStockList().observe(getViewLifecycleOwner(), stocks -> {
-                    if (stocks != null) {
-                        trendingAdapter.setStocks(filterStocks(stocks, TRENDING_STOCKS));
-                        popularAdapter.setStocks(filterStocks(stocks, POPULAR_STOCKS));
-                    }
-                });
-                // Refresh every 30 seconds
-                refreshHandler.postDelayed(this, 30000);
-            }
-        };
-        refreshHandler.post(refreshRunnable);
-    }
-
     private void loadMarketStatus() {
         apiService.fetchMarketStatus("US", new FinnhubApiService.MarketStatusCallback() {
             @Override
@@ -329,9 +264,6 @@ public class DashboardFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        if (refreshHandler != null && refreshRunnable != null) {
-            refreshHandler.removeCallbacks(refreshRunnable);
-        }
         if (marketStatusRefreshHandler != null && marketStatusRefreshRunnable != null) {
             marketStatusRefreshHandler.removeCallbacks(marketStatusRefreshRunnable);
         }
@@ -19,6 +19,7 @@ import com.example.project.adapter.PortfolioAdapter;
 import com.example.project.model.PortfolioItem;
 import com.example.project.repository.PortfolioRepository;
 import com.example.project.repository.StockRepository;
+import com.example.project.util.PriceFormatter;
 
 import java.util.List;
 
@@ -86,8 +87,10 @@ public class WatchlistFragment extends Fragment {
         portfolioRepository.getPortfolio().observe(getViewLifecycleOwner(), portfolioItems -> {
             adapter.setPortfolioItems(portfolioItems);
 
-            // Show/hide empty state
-            if (portfolioItems == null || portfolioItems.isEmpty()) {
+            // Show/hide empty state; stay blank while the portfolio is still loading
+            if (Boolean.TRUE.equals(portfolioRepository.isLoading().getValue())) {
+                emptyStateView.setVisibility(View.GONE);
+            } else if (portfolioItems == null || portfolioItems.isEmpty()) {
                 emptyStateView.setVisibility(View.VISIBLE);
                 recyclerView.setVisibility(View.GONE);
             } else {
@@ -99,10 +102,17 @@ public class WatchlistFragment extends Fragment {
             updateSummary(portfolioItems);
         });
 
+        // Subscribe the loaded positions once the portfolio is available
+        portfolioRepository.isLoading().observe(getViewLifecycleOwner(), loading -> {
+            if (!Boolean.TRUE.equals(loading) && isResumed()) {
+                updatePrices();
+            }
+        });
+
         // Observe balance changes
         portfolioRepository.getBalance().observe(getViewLifecycleOwner(), balance -> {
             if (balanceText != null && balance != null) {
-                balanceText.setText(String.format("$%.2f", balance));
+                balanceText.setText(PriceFormatter.formatPrice(balance));
             }
         });
 
@@ -134,15 +144,14 @@ public class WatchlistFragment extends Fragment {
         double totalProfitLoss = portfolioRepository.getTotalProfitLoss();
 
         if (totalValueText != null) {
-            totalValueText.setText(String.format("$%.2f", totalValue));
+            totalValueText.setText(PriceFormatter.formatPrice(totalValue));
         }
 
         if (profitLossText != null) {
-            String sign = totalProfitLoss >= 0 ? "+" : "";
-            profitLossText.setText(String.format("%s$%.2f", sign, totalProfitLoss));
+            profitLossText.setText(PriceFormatter.formatSignedPrice(totalProfitLoss));
 
             // Set color based on profit/loss
-            int color = totalProfitLoss >= 0 ?
+            int color = !PriceFormatter.isNegative(totalProfitLoss, 2) ?
                     getResources().getColor(R.color.positive_green, null) :
                     getResources().getColor(R.color.negative_red, null);
             profitLossText.setTextColor(color);
@@ -170,5 +179,12 @@ public class WatchlistFragment extends Fragment {
     public void onResume() {
         super.onResume();
         updatePrices();
+        portfolioRepository.startPriceUpdates();
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        portfolioRepository.stopPriceUpdates();
     }
 }
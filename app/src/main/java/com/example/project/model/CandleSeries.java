@@ -0,0 +1,295 @@
+package com.example.project.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Columnar stock candle/OHLCV data from the Finnhub API.
+ * Each column is a primitive array; a series is a view of [offset, offset + length)
+ * over those arrays, so slicing never copies. Instances are immutable.
+ */
+@JsonAdapter(CandleSeries.GsonAdapter.class)
+public class CandleSeries {
+    /** Status Finnhub sends when the range has no candles, e.g. a market holiday */
+    public static final String STATUS_NO_DATA = "no_data";
+
+    private static final long[] NO_LONGS = new long[0];
+    private static final double[] NO_DOUBLES = new double[0];
+
+    private final long[] timestamps;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final double[] volume;
+    private final int offset;
+    private final int length;
+    private final String status;
+
+    /**
+     * Creates a series over the given columns, which must all have the same length.
+     * The arrays are not copied and must not be modified afterwards.
+     */
+    public CandleSeries(long[] timestamps, double[] open, double[] high, double[] low,
+                        double[] close, double[] volume, String status) {
+        this(timestamps, open, high, low, close, volume, 0, timestamps.length, status);
+    }
+
+    private CandleSeries(long[] timestamps, double[] open, double[] high, double[] low,
+                         double[] close, double[] volume, int offset, int length, String status) {
+        this.timestamps = timestamps;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.offset = offset;
+        this.length = length;
+        this.status = status;
+    }
+
+    /**
+     * Creates an empty series with the given API status (e.g. "no_data").
+     */
+    public static CandleSeries empty(String status) {
+        return new CandleSeries(NO_LONGS, NO_DOUBLES, NO_DOUBLES, NO_DOUBLES, NO_DOUBLES, NO_DOUBLES, status);
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[offset + index];
+    }
+
+    public double getOpen(int index) {
+        return open[offset + index];
+    }
+
+    public double getHigh(int index) {
+        return high[offset + index];
+    }
+
+    public double getLow(int index) {
+        return low[offset + index];
+    }
+
+    public double getClose(int index) {
+        return close[offset + index];
+    }
+
+    public double getVolume(int index) {
+        return volume[offset + index];
+    }
+
+    public long getFirstTimestamp() {
+        return timestamps[offset];
+    }
+
+    public long getLastTimestamp() {
+        return timestamps[offset + length - 1];
+    }
+
+    /**
+     * Gets the API response status.
+     *
+     * @return Status ("ok" if successful, "no_data" if no data available)
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks if the series is valid and contains data.
+     *
+     * @return true if data is available, false otherwise
+     */
+    public boolean isValid() {
+        return "ok".equalsIgnoreCase(status) && length > 0;
+    }
+
+    /**
+     * View of the candles with index in [from, to), sharing this series' arrays.
+     */
+    public CandleSeries slice(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("slice(" + from + ", " + to + ") of " + length);
+        }
+        return new CandleSeries(timestamps, open, high, low, close, volume,
+                offset + from, to - from, status);
+    }
+
+    /**
+     * View of the candles with timestamp in [fromTimestamp, toTimestamp].
+     */
+    public CandleSeries range(long fromTimestamp, long toTimestamp) {
+        return slice(indexAtOrAfter(fromTimestamp), indexAtOrAfter(toTimestamp + 1));
+    }
+
+    /**
+     * Index of the first candle at or after the timestamp, or size() if there is none.
+     */
+    public int indexAtOrAfter(long timestamp) {
+        int lo = 0;
+        int hi = length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[offset + mid] < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Keeps the candles of head older than tail's first candle and appends tail.
+     * Used to merge a freshly fetched tail into stored history.
+     */
+    public static CandleSeries concat(CandleSeries head, CandleSeries tail) {
+        int keep = tail.length > 0 ? head.indexAtOrAfter(tail.getFirstTimestamp()) : head.length;
+        int size = keep + tail.length;
+
+        long[] t = new long[size];
+        double[] o = new double[size];
+        double[] h = new double[size];
+        double[] l = new double[size];
+        double[] c = new double[size];
+        double[] v = new double[size];
+
+        System.arraycopy(head.timestamps, head.offset, t, 0, keep);
+        System.arraycopy(head.open, head.offset, o, 0, keep);
+        System.arraycopy(head.high, head.offset, h, 0, keep);
+        System.arraycopy(head.low, head.offset, l, 0, keep);
+        System.arraycopy(head.close, head.offset, c, 0, keep);
+        System.arraycopy(head.volume, head.offset, v, 0, keep);
+
+        System.arraycopy(tail.timestamps, tail.offset, t, keep, tail.length);
+        System.arraycopy(tail.open, tail.offset, o, keep, tail.length);
+        System.arraycopy(tail.high, tail.offset, h, keep, tail.length);
+        System.arraycopy(tail.low, tail.offset, l, keep, tail.length);
+        System.arraycopy(tail.close, tail.offset, c, keep, tail.length);
+        System.arraycopy(tail.volume, tail.offset, v, keep, tail.length);
+
+        return new CandleSeries(t, o, h, l, c, v, "ok");
+    }
+
+    /**
+     * Decodes the Finnhub candle response ({"c":[..],"h":[..],"l":[..],"o":[..],
+     * "t":[..],"v":[..],"s":"ok"}) straight into primitive arrays, without boxing.
+     */
+    public static class GsonAdapter extends TypeAdapter<CandleSeries> {
+
+        @Override
+        public CandleSeries read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            long[] t = NO_LONGS;
+            double[] o = NO_DOUBLES;
+            double[] h = NO_DOUBLES;
+            double[] l = NO_DOUBLES;
+            double[] c = NO_DOUBLES;
+            double[] v = NO_DOUBLES;
+            String status = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "c": c = readDoubles(in); break;
+                    case "h": h = readDoubles(in); break;
+                    case "l": l = readDoubles(in); break;
+                    case "o": o = readDoubles(in); break;
+                    case "t": t = readLongs(in); break;
+                    case "v": v = readDoubles(in); break;
+                    case "s": status = in.nextString(); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+
+            int size = t.length;
+            if (c.length != size || o.length != size || h.length != size || l.length != size) {
+                // Finnhub sends "no_data" with no arrays; anything else uneven is unusable
+                return empty(size == 0 && c.length == 0 ? status : "invalid");
+            }
+            if (v.length != size) {
+                v = new double[size];
+            }
+            return new CandleSeries(t, o, h, l, c, v, status);
+        }
+
+        @Override
+        public void write(JsonWriter out, CandleSeries series) throws IOException {
+            if (series == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("c").beginArray();
+            for (int i = 0; i < series.length; i++) out.value(series.getClose(i));
+            out.endArray();
+            out.name("h").beginArray();
+            for (int i = 0; i < series.length; i++) out.value(series.getHigh(i));
+            out.endArray();
+            out.name("l").beginArray();
+            for (int i = 0; i < series.length; i++) out.value(series.getLow(i));
+            out.endArray();
+            out.name("o").beginArray();
+            for (int i = 0; i < series.length; i++) out.value(series.getOpen(i));
+            out.endArray();
+            out.name("t").beginArray();
+            for (int i = 0; i < series.length; i++) out.value(series.getTimestamp(i));
+            out.endArray();
+            out.name("v").beginArray();
+            for (int i = 0; i < series.length; i++) out.value(series.getVolume(i));
+            out.endArray();
+            out.name("s").value(series.status);
+            out.endObject();
+        }
+
+        private static double[] readDoubles(JsonReader in) throws IOException {
+            double[] values = new double[64];
+            int count = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = in.nextDouble();
+            }
+            in.endArray();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+
+        private static long[] readLongs(JsonReader in) throws IOException {
+            long[] values = new long[64];
+            int count = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = in.nextLong();
+            }
+            in.endArray();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    }
+}
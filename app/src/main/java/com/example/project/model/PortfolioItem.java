@@ -1,5 +1,7 @@
 package com.example.project.model;
 
+import com.example.project.util.PriceFormatter;
+
 /**
  * Model class representing a stock holding in user's portfolio
  */
@@ -21,6 +23,17 @@ public class PortfolioItem {
         this.currentPrice = averageCost; // Initial price
     }
 
+    /**
+     * Copy of another holding, e.g. a snapshot for a list diff or for persistence
+     */
+    public PortfolioItem(PortfolioItem other) {
+        this.symbol = other.symbol;
+        this.shares = other.shares;
+        this.averageCost = other.averageCost;
+        this.totalInvested = other.totalInvested;
+        this.currentPrice = other.currentPrice;
+    }
+
     // Getters and Setters
     public String getSymbol() {
         return symbol;
@@ -99,42 +112,35 @@ public class PortfolioItem {
      * Get formatted shares string
      */
     public String getFormattedShares() {
-        if (shares % 1 == 0) {
-            return String.format("%.0f", shares);
-        }
-        return String.format("%.2f", shares);
+        return PriceFormatter.formatShares(shares);
     }
 
     /**
      * Get formatted average cost
      */
     public String getFormattedAverageCost() {
-        return String.format("$%.2f", averageCost);
+        return PriceFormatter.formatPrice(averageCost);
     }
 
     /**
      * Get formatted current value
      */
     public String getFormattedCurrentValue() {
-        return String.format("$%.2f", getCurrentValue());
+        return PriceFormatter.formatPrice(getCurrentValue());
     }
 
     /**
      * Get formatted profit/loss
      */
     public String getFormattedProfitLoss() {
-        double pl = getProfitLoss();
-        String sign = pl >= 0 ? "+" : "";
-        return String.format("%s$%.2f", sign, pl);
+        return PriceFormatter.formatSignedPrice(getProfitLoss());
     }
 
     /**
      * Get formatted profit/loss percentage
      */
     public String getFormattedProfitLossPercent() {
-        double plPercent = getProfitLossPercent();
-        String sign = plPercent >= 0 ? "+" : "";
-        return String.format("%s%.2f%%", sign, plPercent);
+        return PriceFormatter.formatSignedPercent(getProfitLossPercent());
     }
 
     /**
@@ -1,11 +1,15 @@
 package com.example.project.model;
 
+import com.example.project.util.PriceFormatter;
+
 public class Stock {
     private String symbol;
     private double currentPrice;
     private double openingPrice;  // Market opening price for % calculation
     private double changePercent;
+    private double streamedVolume; // Volume of trades streamed since subscribing, not the session volume
     private long lastUpdateTime;
+    private long priceTimestamp;   // Epoch ms of the trade or quote currentPrice is from, 0 if unknown
 
     public Stock(String symbol) {
         this.symbol = symbol;
@@ -15,6 +19,19 @@ public class Stock {
         this.lastUpdateTime = System.currentTimeMillis();
     }
 
+    /**
+     * Copy of another stock, e.g. a snapshot for a list diff while the original keeps updating
+     */
+    public Stock(Stock other) {
+        this.symbol = other.symbol;
+        this.currentPrice = other.currentPrice;
+        this.openingPrice = other.openingPrice;
+        this.changePercent = other.changePercent;
+        this.streamedVolume = other.streamedVolume;
+        this.lastUpdateTime = other.lastUpdateTime;
+        this.priceTimestamp = other.priceTimestamp;
+    }
+
     public String getSymbol() {
         return symbol;
     }
@@ -48,6 +65,14 @@ public class Stock {
         this.changePercent = changePercent;
     }
 
+    public double getStreamedVolume() {
+        return streamedVolume;
+    }
+
+    public void setStreamedVolume(double streamedVolume) {
+        this.streamedVolume = streamedVolume;
+    }
+
     public long getLastUpdateTime() {
         return lastUpdateTime;
     }
@@ -57,16 +82,26 @@ public class Stock {
     }
 
     public String getFormattedPrice() {
-        return String.format("$%.2f", currentPrice);
+        return PriceFormatter.formatPrice(currentPrice);
     }
 
     public String getFormattedChangePercent() {
-        String prefix = changePercent >= 0 ? "+" : "";
-        return String.format("%s%.2f%%", prefix, changePercent);
+        return PriceFormatter.formatSignedPercent(changePercent);
+    }
+
+    public long getPriceTimestamp() {
+        return priceTimestamp;
     }
 
+    public void setPriceTimestamp(long priceTimestamp) {
+        this.priceTimestamp = priceTimestamp;
+    }
+
+    /**
+     * Whether the change is shown as positive, i.e. not negative once rounded to two decimals
+     */
     public boolean isPositiveChange() {
-        return changePercent >= 0;
+        return !PriceFormatter.isNegative(changePercent, 2);
     }
 
     /**
@@ -0,0 +1,95 @@
+package com.example.project.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One published state of the stock list plus what changed since the previous one.
+ * Updates are batched per frame, so several price ticks arrive as one update whose
+ * changed symbols lets observers skip sections that did not move.
+ */
+public class StockListUpdate {
+    private final List<Stock> stocks;
+    private final Map<String, Stock> stocksBySymbol;
+    private final Set<String> changedSymbols;
+    private final boolean structuralChange;
+
+    /**
+     * @param structuralChange true if stocks were added or removed, in which case
+     *                         changedSymbols is not exhaustive
+     */
+    public StockListUpdate(List<Stock> stocks, Set<String> changedSymbols, boolean structuralChange) {
+        this.stocks = Collections.unmodifiableList(stocks);
+        this.stocksBySymbol = new HashMap<>();
+        for (Stock stock : stocks) {
+            stocksBySymbol.put(stock.getSymbol(), stock);
+        }
+        this.changedSymbols = Collections.unmodifiableSet(changedSymbols);
+        this.structuralChange = structuralChange;
+    }
+
+    public List<Stock> getStocks() {
+        return stocks;
+    }
+
+    public Stock getStock(String symbol) {
+        return stocksBySymbol.get(symbol);
+    }
+
+    /**
+     * The stocks of a group in group order, skipping symbols without a stock, at most
+     * limit of them. Costs one lookup per symbol of the group.
+     */
+    public List<Stock> select(SymbolGroup group, int limit) {
+        List<Stock> selected = new ArrayList<>(Math.min(group.size(), limit));
+        for (String symbol : group.getSymbols()) {
+            if (selected.size() == limit) {
+                break;
+            }
+            Stock stock = stocksBySymbol.get(symbol);
+            if (stock != null) {
+                selected.add(stock);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Symbols whose price changed since the previous update
+     */
+    public Set<String> getChangedSymbols() {
+        return changedSymbols;
+    }
+
+    public boolean isStructuralChange() {
+        return structuralChange;
+    }
+
+    /**
+     * Whether a view showing these symbols needs to refresh for this update
+     */
+    public boolean affects(Collection<String> symbols) {
+        if (structuralChange) {
+            return true;
+        }
+        for (String symbol : symbols) {
+            if (changedSymbols.contains(symbol)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@link #affects(Collection)}, checking each changed symbol against the
+     * group instead of scanning the group
+     */
+    public boolean affects(SymbolGroup group) {
+        return structuralChange || group.containsAny(changedSymbols);
+    }
+}
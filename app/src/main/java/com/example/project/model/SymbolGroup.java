@@ -0,0 +1,122 @@
+package com.example.project.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An ordered set of symbols, such as the watchlist or a dashboard section, with
+ * constant-time membership. Instances are immutable, so a group can be published through
+ * LiveData and read anywhere; {@link #plus} and {@link #minus} return the changed group.
+ */
+public class SymbolGroup {
+    private static final SymbolGroup EMPTY = new SymbolGroup(new ArrayList<>(), new HashSet<>());
+
+    private final List<String> symbols;
+    private final Set<String> index;
+
+    private SymbolGroup(List<String> symbols, Set<String> index) {
+        this.symbols = Collections.unmodifiableList(symbols);
+        this.index = index;
+    }
+
+    public static SymbolGroup empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Group of the given symbols in order, upper-cased, without blanks or duplicates
+     */
+    public static SymbolGroup of(Collection<String> symbols) {
+        if (symbols == null || symbols.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<String> ordered = new ArrayList<>(symbols.size());
+        Set<String> index = new HashSet<>();
+        for (String symbol : symbols) {
+            if (symbol == null || symbol.trim().isEmpty()) {
+                continue;
+            }
+            String upper = symbol.trim().toUpperCase();
+            if (index.add(upper)) {
+                ordered.add(upper);
+            }
+        }
+        return new SymbolGroup(ordered, index);
+    }
+
+    public boolean contains(String symbol) {
+        return symbol != null && index.contains(symbol);
+    }
+
+    /**
+     * The symbols in order
+     */
+    public List<String> getSymbols() {
+        return symbols;
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    public boolean isEmpty() {
+        return symbols.isEmpty();
+    }
+
+    /**
+     * This group with the (upper-case) symbol appended, or this group if it already contains it
+     */
+    public SymbolGroup plus(String symbol) {
+        if (contains(symbol)) {
+            return this;
+        }
+        List<String> ordered = new ArrayList<>(symbols);
+        ordered.add(symbol);
+        Set<String> next = new HashSet<>(index);
+        next.add(symbol);
+        return new SymbolGroup(ordered, next);
+    }
+
+    /**
+     * This group without the symbol, or this group if it does not contain it
+     */
+    public SymbolGroup minus(String symbol) {
+        if (!contains(symbol)) {
+            return this;
+        }
+        List<String> ordered = new ArrayList<>(symbols);
+        ordered.remove(symbol);
+        Set<String> next = new HashSet<>(index);
+        next.remove(symbol);
+        return new SymbolGroup(ordered, next);
+    }
+
+    /**
+     * Whether any of the symbols is in this group
+     */
+    public boolean containsAny(Collection<String> others) {
+        for (String symbol : others) {
+            if (index.contains(symbol)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SymbolGroup)) return false;
+        return symbols.equals(((SymbolGroup) o).symbols);
+    }
+
+    @Override
+    public int hashCode() {
+        return symbols.hashCode();
+    }
+}
@@ -8,8 +8,8 @@ import java.util.Calendar;
  */
 public enum TimeFrame {
     // Short term
-    ONE_DAY("D", 1 * 24 * 60 * 60, "1D"),           // Daily resolution, 1 day
-    FIVE_DAYS("D", 5 * 24 * 60 * 60, "5D"),         // Daily resolution, 5 days
+    ONE_DAY("5", 1 * 24 * 60 * 60, "1D"),           // 5-minute resolution, 1 day
+    FIVE_DAYS("15", 5 * 24 * 60 * 60, "5D"),        // 15-minute resolution, 5 days
 
     // Medium term
     ONE_MONTH("D", 30 * 24 * 60 * 60, "1M"),        // Daily resolution, 1 month
@@ -23,6 +23,9 @@ public enum TimeFrame {
     FIVE_YEARS("W", 5 * 365 * 24 * 60 * 60, "5Y"),  // Weekly resolution, 5 years
     MAX("M", 10 * 365 * 24 * 60 * 60, "MAX");       // Monthly resolution, 10 years (max)
 
+    // Intraday frames fetch a few extra days so a weekend or holiday still shows the last session
+    private static final long INTRADAY_LOOKBACK_PADDING_SECONDS = 4 * 24 * 60 * 60;
+
     private final String resolution;      // Finnhub API resolution (1, 5, 15, 30, 60, D, W, M)
     private final long durationSeconds;   // Duration to fetch in seconds
     private final String label;           // Display label for UI
@@ -50,6 +53,20 @@ public enum TimeFrame {
         return resolution;
     }
 
+    /**
+     * Gets the length of one candle in seconds (months count as 31 days).
+     *
+     * @return Candle period in seconds
+     */
+    public long getResolutionSeconds() {
+        switch (resolution) {
+            case "D": return 24 * 60 * 60;
+            case "W": return 7 * 24 * 60 * 60;
+            case "M": return 31 * 24 * 60 * 60;
+            default: return Long.parseLong(resolution) * 60;
+        }
+    }
+
     /**
      * Gets the duration to fetch in seconds.
      *
@@ -91,6 +108,52 @@ public enum TimeFrame {
         return currentTime - durationSeconds;
     }
 
+    /**
+     * Calculates the 'from' timestamp to fetch candles from. Same as
+     * {@link #getFromTimestamp(long)}, padded for intraday frames so the last trading
+     * session is available when the market is closed.
+     *
+     * @param currentTime Current Unix timestamp in seconds
+     * @return 'from' timestamp for the API call
+     */
+    public long getFetchFromTimestamp(long currentTime) {
+        long from = getFromTimestamp(currentTime);
+        return isIntraday() ? from - INTRADAY_LOOKBACK_PADDING_SECONDS : from;
+    }
+
+    /**
+     * Calculates the first timestamp to display, ending the window at the last available
+     * candle rather than now when the market has been closed since.
+     *
+     * @param currentTime   Current Unix timestamp in seconds
+     * @param lastTimestamp Timestamp of the newest available candle
+     * @return first timestamp to show
+     */
+    public long getDisplayFromTimestamp(long currentTime, long lastTimestamp) {
+        if (!isIntraday()) {
+            return getFromTimestamp(currentTime);
+        }
+        return getFromTimestamp(Math.min(currentTime, lastTimestamp));
+    }
+
+    /**
+     * Calculates the earliest timestamp any time frame with the given resolution fetches
+     * from; stored candles older than this are never displayed.
+     *
+     * @param resolution  Finnhub API resolution
+     * @param currentTime Current Unix timestamp in seconds
+     * @return earliest 'from' timestamp, or 0 if no time frame uses the resolution
+     */
+    public static long getRetentionFromTimestamp(String resolution, long currentTime) {
+        long earliest = Long.MAX_VALUE;
+        for (TimeFrame timeFrame : values()) {
+            if (timeFrame.resolution.equals(resolution)) {
+                earliest = Math.min(earliest, timeFrame.getFetchFromTimestamp(currentTime));
+            }
+        }
+        return earliest == Long.MAX_VALUE ? 0 : earliest;
+    }
+
     /**
      * Checks if this is an intraday time frame (minute-based resolution).
      *
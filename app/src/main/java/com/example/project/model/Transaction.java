@@ -1,5 +1,8 @@
 package com.example.project.model;
 
+import com.example.project.util.FormattedValue;
+import com.example.project.util.PriceFormatter;
+
 /**
  * Model class representing a stock transaction (buy/sell)
  */
@@ -15,6 +18,11 @@ public class Transaction {
     private double price;
     private long timestamp;
 
+    // History rows format the same few transactions repeatedly while scrolling
+    private final transient FormattedValue formattedAmount = new FormattedValue();
+    private transient long formattedDateTimestamp;
+    private transient String formattedDate;
+
     public Transaction() {
     }
 
@@ -87,15 +95,18 @@ public class Transaction {
      * Get formatted transaction amount
      */
     public String getFormattedAmount() {
-        return String.format("$%.2f", getTotalAmount());
+        return formattedAmount.get(getTotalAmount(), PriceFormatter::formatPrice);
     }
 
     /**
      * Get formatted transaction date
      */
     public String getFormattedDate() {
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm");
-        return sdf.format(new java.util.Date(timestamp));
+        if (formattedDate == null || formattedDateTimestamp != timestamp) {
+            formattedDateTimestamp = timestamp;
+            formattedDate = PriceFormatter.formatDateTime(timestamp);
+        }
+        return formattedDate;
     }
 
     /**
@@ -0,0 +1,33 @@
+package com.example.project.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of transaction history, newest first. The next page is requested with the
+ * last transaction of this one as its cursor.
+ */
+public class TransactionPage {
+    private final List<Transaction> transactions;
+    private final boolean hasMore;
+
+    public TransactionPage(List<Transaction> transactions, boolean hasMore) {
+        this.transactions = Collections.unmodifiableList(transactions);
+        this.hasMore = hasMore;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Cursor for the next page, or null if this page is empty
+     */
+    public Transaction getLastTransaction() {
+        return transactions.isEmpty() ? null : transactions.get(transactions.size() - 1);
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
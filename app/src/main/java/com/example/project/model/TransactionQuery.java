@@ -0,0 +1,55 @@
+package com.example.project.model;
+
+/**
+ * Filter for paging through the transaction history. Every criterion is optional;
+ * the time range is [fromTimestamp, toTimestamp) in milliseconds. Instances are immutable.
+ */
+public class TransactionQuery {
+    private final String symbol;
+    private final Transaction.Type type;
+    private final long fromTimestamp;
+    private final long toTimestamp;
+
+    /**
+     * @param symbol        Only this symbol, or null for all
+     * @param type          Only buys or only sells, or null for both
+     * @param fromTimestamp Earliest timestamp, inclusive; 0 for no lower bound
+     * @param toTimestamp   Latest timestamp, exclusive; {@link Long#MAX_VALUE} for no upper bound
+     */
+    public TransactionQuery(String symbol, Transaction.Type type, long fromTimestamp, long toTimestamp) {
+        this.symbol = symbol != null ? symbol.trim().toUpperCase() : null;
+        this.type = type;
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+    }
+
+    /**
+     * Every transaction, newest first
+     */
+    public static TransactionQuery all() {
+        return new TransactionQuery(null, null, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Every transaction of one symbol, newest first
+     */
+    public static TransactionQuery forSymbol(String symbol) {
+        return new TransactionQuery(symbol, null, 0, Long.MAX_VALUE);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public Transaction.Type getType() {
+        return type;
+    }
+
+    public long getFromTimestamp() {
+        return fromTimestamp;
+    }
+
+    public long getToTimestamp() {
+        return toTimestamp;
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.project.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.project.model.CandleSeries;
+import com.example.project.model.TimeFrame;
+import com.example.project.service.FinnhubApiService;
+import com.example.project.util.AppExecutors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Repository for historical candles backed by an on-disk columnar store.
+ * Each symbol+resolution is one file holding the timestamp, OHLC and volume columns
+ * as primitive arrays. Chart requests are served from the store, and only the tail
+ * since the last stored bar is fetched from Finnhub; the full range is fetched only
+ * when the request starts before what the store covers.
+ */
+public class CandleRepository {
+    private static final String TAG = "CandleRepository";
+    private static final String STORE_DIR = "candles";
+    private static final int FILE_MAGIC = 0x43414E44; // "CAND"
+    private static final int FILE_VERSION = 2;
+    private static final int MEMORY_CACHE_SIZE = 8;
+    // Minimum time between tail refreshes of the same series
+    private static final long TAIL_REFRESH_INTERVAL_SECONDS = 60;
+
+    private static CandleRepository instance;
+
+    private final File storeDir;
+    private final FinnhubApiService apiService;
+    private final Handler mainHandler;
+    // Recently used series; accessed only on the shared disk executor
+    private final Map<String, StoredSeries> memoryCache;
+
+    /**
+     * Receives candles on the main thread. May be called twice for one request: first
+     * with stored bars, then again once the missing tail has been fetched.
+     */
+    public interface CandleCallback {
+        void onCandlesLoaded(CandleSeries candles, boolean fromStore);
+        void onError(String error);
+    }
+
+    private CandleRepository(Context context) {
+        this.storeDir = new File(context.getFilesDir(), STORE_DIR);
+        this.apiService = new FinnhubApiService();
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.memoryCache = new LinkedHashMap<String, StoredSeries>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredSeries> eldest) {
+                return size() > MEMORY_CACHE_SIZE;
+            }
+        };
+    }
+
+    public static synchronized CandleRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new CandleRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Loads candles for a symbol and time frame, fetching only what the store lacks.
+     */
+    public void loadCandles(String symbol, TimeFrame timeFrame, CandleCallback callback) {
+        long now = System.currentTimeMillis() / 1000;
+        long from = timeFrame.getFetchFromTimestamp(now);
+        String resolution = timeFrame.getResolution();
+
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            StoredSeries stored = readSeries(symbol, resolution);
+
+            if (stored != null && stored.coveredFrom <= from) {
+                CandleSeries slice = displaySlice(stored.bars, timeFrame, now);
+                if (slice.size() > 0) {
+                    deliver(callback, slice, true);
+                }
+
+                if (now - stored.fetchedAt < TAIL_REFRESH_INTERVAL_SECONDS) {
+                    if (slice.size() == 0) {
+                        deliverError(callback, "No data available");
+                    }
+                    return;
+                }
+
+                // Re-fetch from the last stored bar inclusive; it may have been partial
+                long tailFrom = stored.bars.size() > 0 ? stored.bars.getLastTimestamp() : from;
+                fetchAndMerge(symbol, timeFrame, tailFrom, now, stored.coveredFrom, callback, slice.size() > 0);
+            } else {
+                fetchAndMerge(symbol, timeFrame, from, now, from, callback, false);
+            }
+        });
+    }
+
+    /**
+     * Deletes every stored series.
+     */
+    public void clear() {
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            memoryCache.clear();
+            File[] files = storeDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (!file.delete()) {
+                        Log.w(TAG, "Could not delete " + file.getName());
+                    }
+                }
+            }
+        });
+    }
+
+    private void fetchAndMerge(String symbol, TimeFrame timeFrame, long fetchFrom, long to,
+                               long coveredFrom, CandleCallback callback, boolean alreadyDelivered) {
+        String resolution = timeFrame.getResolution();
+        Log.d(TAG, "Fetching " + symbol + " " + resolution + " candles from " + fetchFrom);
+
+        apiService.fetchCandleData(symbol, resolution, fetchFrom, to, new FinnhubApiService.CandleDataCallback() {
+            @Override
+            public void onSuccess(CandleSeries candles) {
+                AppExecutors.getInstance().diskIO().execute(() -> {
+                    if (candles.size() == 0) {
+                        if (alreadyDelivered) {
+                            // No new bars since the last fetch (e.g. market closed); keep what we have
+                            Log.d(TAG, "Tail fetch for " + symbol + " returned no data");
+                            touchSeries(symbol, resolution, to);
+                        } else {
+                            deliverError(callback, "No data available");
+                        }
+                        return;
+                    }
+
+                    StoredSeries current = readSeries(symbol, resolution);
+                    StoredSeries merged = new StoredSeries();
+                    merged.coveredFrom = Math.min(coveredFrom, fetchFrom);
+                    merged.fetchedAt = to;
+                    merged.bars = current != null && current.coveredFrom <= fetchFrom
+                            ? CandleSeries.concat(current.bars, candles)
+                            : candles;
+                    trimToRetention(merged, resolution, to);
+                    writeSeries(symbol, resolution, merged);
+
+                    CandleSeries slice = displaySlice(merged.bars, timeFrame, to);
+                    if (slice.size() > 0) {
+                        deliver(callback, slice, false);
+                    } else if (!alreadyDelivered) {
+                        deliverError(callback, "No data available");
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                if (alreadyDelivered) {
+                    // Stored bars are on screen; the next load retries the tail
+                    Log.w(TAG, "Tail fetch for " + symbol + " failed: " + error);
+                } else {
+                    deliverError(callback, error);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops bars older than the longest window shown at this resolution, so a series
+     * that is refreshed every day doesn't grow without bound. The window is measured
+     * back from the last bar, like the intraday display window.
+     */
+    private static void trimToRetention(StoredSeries series, String resolution, long now) {
+        if (series.bars.size() == 0) {
+            return;
+        }
+        long end = Math.min(now, series.bars.getLastTimestamp());
+        long keepFrom = TimeFrame.getRetentionFromTimestamp(resolution, end);
+        int first = series.bars.indexAtOrAfter(keepFrom);
+        if (first > 0) {
+            series.bars = series.bars.slice(first, series.bars.size());
+            series.coveredFrom = Math.max(series.coveredFrom, keepFrom);
+        }
+    }
+
+    /**
+     * The bars shown for a time frame; intraday windows end at the last bar so the last
+     * session stays visible while the market is closed.
+     */
+    private static CandleSeries displaySlice(CandleSeries bars, TimeFrame timeFrame, long now) {
+        if (bars.size() == 0) {
+            return bars;
+        }
+        return bars.range(timeFrame.getDisplayFromTimestamp(now, bars.getLastTimestamp()), now);
+    }
+
+    private void deliver(CandleCallback callback, CandleSeries candles, boolean fromStore) {
+        mainHandler.post(() -> callback.onCandlesLoaded(candles, fromStore));
+    }
+
+    private void deliverError(CandleCallback callback, String error) {
+        mainHandler.post(() -> callback.onError(error));
+    }
+
+    /**
+     * Marks a series as just refreshed so the tail isn't refetched right away
+     */
+    private void touchSeries(String symbol, String resolution, long fetchedAt) {
+        StoredSeries stored = readSeries(symbol, resolution);
+        if (stored != null) {
+            stored.fetchedAt = fetchedAt;
+            writeSeries(symbol, resolution, stored);
+        }
+    }
+
+    private StoredSeries readSeries(String symbol, String resolution) {
+        String key = cacheKey(symbol, resolution);
+        StoredSeries cached = memoryCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        File file = seriesFile(symbol, resolution);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            StoredSeries series = StoredSeries.read(in);
+            memoryCache.put(key, series);
+            return series;
+        } catch (IOException e) {
+            Log.e(TAG, "Discarding unreadable candle file " + file.getName(), e);
+            if (!file.delete()) {
+                Log.w(TAG, "Could not delete " + file.getName());
+            }
+            return null;
+        }
+    }
+
+    private void writeSeries(String symbol, String resolution, StoredSeries series) {
+        memoryCache.put(cacheKey(symbol, resolution), series);
+
+        if (!storeDir.exists() && !storeDir.mkdirs()) {
+            Log.e(TAG, "Could not create candle store directory");
+            return;
+        }
+
+        // Write to a temp file and rename so a crash never leaves a torn file behind
+        File file = seriesFile(symbol, resolution);
+        File temp = new File(storeDir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            series.write(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write candle file " + file.getName(), e);
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.e(TAG, "Failed to replace candle file " + file.getName());
+        }
+    }
+
+    private File seriesFile(String symbol, String resolution) {
+        return new File(storeDir, cacheKey(symbol, resolution).replaceAll("[^A-Za-z0-9._-]", "_") + ".bin");
+    }
+
+    private static String cacheKey(String symbol, String resolution) {
+        return symbol + "_" + resolution;
+    }
+
+    /**
+     * Stored bars of one symbol+resolution and how far back they are complete
+     */
+    private static class StoredSeries {
+        long coveredFrom;   // earliest timestamp the stored range is complete from
+        long fetchedAt;     // when the tail was last fetched
+        CandleSeries bars;
+
+        static StoredSeries read(DataInputStream in) throws IOException {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Unknown candle file format");
+            }
+
+            StoredSeries series = new StoredSeries();
+            series.coveredFrom = in.readLong();
+            series.fetchedAt = in.readLong();
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Corrupt candle count: " + count);
+            }
+
+            long[] timestamps = readLongs(in, count);
+            double[] open = readDoubles(in, count);
+            double[] high = readDoubles(in, count);
+            double[] low = readDoubles(in, count);
+            double[] close = readDoubles(in, count);
+            double[] volume = readDoubles(in, count);
+            series.bars = new CandleSeries(timestamps, open, high, low, close, volume, "ok");
+            return series;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            int count = bars.size();
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeLong(coveredFrom);
+            out.writeLong(fetchedAt);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) out.writeLong(bars.getTimestamp(i));
+            for (int i = 0; i < count; i++) out.writeDouble(bars.getOpen(i));
+            for (int i = 0; i < count; i++) out.writeDouble(bars.getHigh(i));
+            for (int i = 0; i < count; i++) out.writeDouble(bars.getLow(i));
+            for (int i = 0; i < count; i++) out.writeDouble(bars.getClose(i));
+            for (int i = 0; i < count; i++) out.writeDouble(bars.getVolume(i));
+        }
+
+        private static long[] readLongs(DataInputStream in, int count) throws IOException {
+            long[] values = new long[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = in.readLong();
+            }
+            return values;
+        }
+
+        private static double[] readDoubles(DataInputStream in, int count) throws IOException {
+            double[] values = new double[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = in.readDouble();
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.project.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds back operations on a repository until its stored state has been loaded, then
+ * runs them in call order. Main thread only.
+ */
+class PendingOperations {
+    private final List<Runnable> operations = new ArrayList<>();
+    private boolean ready = false;
+
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Runs the operation now if the repository is loaded, otherwise once it is.
+     */
+    void runWhenReady(Runnable operation) {
+        if (ready) {
+            operation.run();
+        } else {
+            operations.add(operation);
+        }
+    }
+
+    void markReady() {
+        ready = true;
+        List<Runnable> queued = new ArrayList<>(operations);
+        operations.clear();
+        for (Runnable operation : queued) {
+            operation.run();
+        }
+    }
+}
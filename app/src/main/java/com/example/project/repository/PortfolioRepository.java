@@ -12,10 +12,14 @@ import androidx.lifecycle.MutableLiveData;
 import com.example.project.model.PortfolioItem;
 import com.example.project.model.StockQuote;
 import com.example.project.model.Transaction;
-import com.example.project.service.FinnhubApiService;
+import com.example.project.model.TransactionPage;
+import com.example.project.model.TransactionQuery;
+import com.example.project.service.QuoteRefreshEngine;
+import com.example.project.util.AppExecutors;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
+import java.io.File;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -23,7 +27,14 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Repository for managing user's demo trading portfolio with auto price updates
+ * Repository for managing user's demo trading portfolio with auto price updates.
+ * Trades are appended to a binary {@link TransactionJournal} off the main thread instead
+ * of rewriting the whole portfolio; positions and balance are snapshotted every
+ * {@link #SNAPSHOT_INTERVAL} trades so startup only replays the trades since.
+ * The full history lives in a SQLite {@link TransactionStore} and is read a page at a
+ * time with {@link #loadTransactionPage}; none of it is kept in memory.
+ * The journal is loaded on a background thread; trades are refused and other changes
+ * are held back until it has been.
  */
 public class PortfolioRepository {
     private static final String TAG = "PortfolioRepository";
@@ -32,86 +43,75 @@ public class PortfolioRepository {
     private static final String KEY_BALANCE = "demo_balance";
     private static final String KEY_TRANSACTIONS = "transactions";
     private static final double INITIAL_BALANCE = 100000.0; // $100,000 demo money
-    private static final long PRICE_UPDATE_INTERVAL = 30000; // 30 seconds
+    private static final String JOURNAL_DIR = "portfolio";
+    private static final int SNAPSHOT_INTERVAL = 50;
 
     private static PortfolioRepository instance;
     private final SharedPreferences sharedPreferences;
     private final Gson gson;
-    private final FinnhubApiService apiService;
+    private final QuoteRefreshEngine.Subscription quoteSubscription;
     private final Handler handler;
 
     private final Map<String, PortfolioItem> portfolioMap;
     private final MutableLiveData<List<PortfolioItem>> portfolioLiveData;
     private final MutableLiveData<Double> balanceLiveData;
-    private final List<Transaction> transactions;
+    private final MutableLiveData<Boolean> loadingLiveData;
+    private final TransactionJournal journal;
+    private final PendingOperations pendingOperations;
+    private double balance = INITIAL_BALANCE;
+    private int transactionsSinceSnapshot = 0;
 
-    private Runnable priceUpdateRunnable;
     private boolean isPriceUpdateActive = false;
 
     private PortfolioRepository(Context context) {
         this.sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         this.gson = new Gson();
-        this.apiService = new FinnhubApiService();
+        this.quoteSubscription = QuoteRefreshEngine.getInstance().subscribe(this::onQuote);
         this.handler = new Handler(Looper.getMainLooper());
         this.portfolioMap = new HashMap<>();
         this.portfolioLiveData = new MutableLiveData<>(new ArrayList<>());
         this.balanceLiveData = new MutableLiveData<>(INITIAL_BALANCE);
-        this.transactions = new ArrayList<>();
+        this.loadingLiveData = new MutableLiveData<>(true);
+        this.journal = new TransactionJournal(new File(context.getFilesDir(), JOURNAL_DIR),
+                new TransactionStore(context));
+        this.pendingOperations = new PendingOperations();
 
-        loadFromPreferences();
-        setupPriceUpdates();
-        startPriceUpdates();
+        AppExecutors.getInstance().diskIO().execute(this::loadPortfolio);
     }
 
-    private void setupPriceUpdates() {
-        priceUpdateRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (isPriceUpdateActive && !portfolioMap.isEmpty()) {
-                    fetchAllPortfolioPrices();
-                    handler.postDelayed(this, PRICE_UPDATE_INTERVAL);
-                }
-            }
-        };
+    private void onQuote(String symbol, StockQuote quote) {
+        PortfolioItem item = portfolioMap.get(symbol);
+        if (item != null) {
+            item.setCurrentPrice(quote.getCurrentPrice());
+            Log.d(TAG, symbol + " price updated: $" + quote.getCurrentPrice());
+            notifyPortfolioChanged();
+        }
     }
 
-    private void fetchAllPortfolioPrices() {
-        Log.d(TAG, "Fetching prices for " + portfolioMap.size() + " portfolio items");
-
-        for (String symbol : new ArrayList<>(portfolioMap.keySet())) {
-            apiService.fetchQuote(symbol, new FinnhubApiService.QuoteCallback() {
-                @Override
-                public void onSuccess(StockQuote quote) {
-                    handler.post(() -> {
-                        PortfolioItem item = portfolioMap.get(symbol);
-                        if (item != null) {
-                            item.setCurrentPrice(quote.getCurrentPrice());
-                            Log.d(TAG, symbol + " price updated: $" + quote.getCurrentPrice());
-                        }
-                        notifyPortfolioChanged();
-                    });
-                }
-
-                @Override
-                public void onError(String error) {
-                    Log.e(TAG, "Error fetching price for " + symbol + ": " + error);
-                }
-            });
-        }
+    /**
+     * Keeps the quote subscription in line with the positions held
+     */
+    private void syncQuoteSymbols() {
+        quoteSubscription.setSymbols(portfolioMap.keySet());
     }
 
+    /**
+     * Starts 30-second price updates from the shared {@link QuoteRefreshEngine}; called by
+     * screens that show portfolio values while they are visible. Nothing is fetched until
+     * the portfolio has loaded and holds a position.
+     */
     public void startPriceUpdates() {
         if (!isPriceUpdateActive) {
             isPriceUpdateActive = true;
-            handler.post(priceUpdateRunnable);
-            Log.d(TAG, "Started portfolio price updates (30s interval)");
+            quoteSubscription.setActive(true);
+            Log.d(TAG, "Started portfolio price updates");
         }
     }
 
     public void stopPriceUpdates() {
         if (isPriceUpdateActive) {
             isPriceUpdateActive = false;
-            handler.removeCallbacks(priceUpdateRunnable);
+            quoteSubscription.setActive(false);
             Log.d(TAG, "Stopped portfolio price updates");
         }
     }
@@ -123,6 +123,13 @@ public class PortfolioRepository {
         return instance;
     }
 
+    /**
+     * Receives a page of transaction history on the main thread
+     */
+    public interface TransactionPageCallback {
+        void onPageLoaded(TransactionPage page);
+    }
+
     /**
      * Get portfolio items as LiveData
      */
@@ -130,6 +137,13 @@ public class PortfolioRepository {
         return portfolioLiveData;
     }
 
+    /**
+     * Whether the stored portfolio is still being loaded
+     */
+    public LiveData<Boolean> isLoading() {
+        return loadingLiveData;
+    }
+
     /**
      * Get demo balance as LiveData
      */
@@ -141,14 +155,18 @@ public class PortfolioRepository {
      * Get current balance value
      */
     public double getCurrentBalance() {
-        Double balance = balanceLiveData.getValue();
-        return balance != null ? balance : INITIAL_BALANCE;
+        return balance;
     }
 
     /**
      * Buy stock
      */
     public boolean buyStock(String symbol, double shares, double pricePerShare) {
+        if (!pendingOperations.isReady()) {
+            Log.w(TAG, "Portfolio still loading, purchase refused");
+            return false;
+        }
+
         double totalCost = shares * pricePerShare;
         double currentBalance = getCurrentBalance();
 
@@ -158,27 +176,12 @@ public class PortfolioRepository {
             return false;
         }
 
-        // Deduct from balance
-        double newBalance = currentBalance - totalCost;
-        balanceLiveData.setValue(newBalance);
-
-        // Add or update portfolio item
-        PortfolioItem existingItem = portfolioMap.get(symbol);
-        if (existingItem != null) {
-            // Add to existing position
-            existingItem.addShares(shares, pricePerShare);
-        } else {
-            // Create new position
-            PortfolioItem newItem = new PortfolioItem(symbol, shares, pricePerShare);
-            portfolioMap.put(symbol, newItem);
-        }
-
-        // Record transaction
+        // Apply, record and journal the transaction
         Transaction transaction = new Transaction(symbol, Transaction.Type.BUY, shares, pricePerShare);
-        transactions.add(transaction);
-
-        // Save and notify
-        saveToPreferences();
+        balance = applyTransaction(portfolioMap, balance, transaction);
+        balanceLiveData.setValue(balance);
+        syncQuoteSymbols();
+        recordTransaction(transaction);
         notifyPortfolioChanged();
 
         Log.d(TAG, "Bought " + shares + " shares of " + symbol + " at $" + pricePerShare);
@@ -189,6 +192,11 @@ public class PortfolioRepository {
      * Sell stock
      */
     public boolean sellStock(String symbol, double shares, double pricePerShare) {
+        if (!pendingOperations.isReady()) {
+            Log.w(TAG, "Portfolio still loading, sale refused");
+            return false;
+        }
+
         PortfolioItem item = portfolioMap.get(symbol);
 
         // Check if user owns this stock
@@ -197,32 +205,40 @@ public class PortfolioRepository {
             return false;
         }
 
-        // Add proceeds to balance
-        double proceeds = shares * pricePerShare;
-        double newBalance = getCurrentBalance() + proceeds;
-        balanceLiveData.setValue(newBalance);
-
-        // Update or remove portfolio item
-        if (item.getShares() == shares) {
-            // Selling all shares - remove from portfolio
-            portfolioMap.remove(symbol);
-        } else {
-            // Selling partial shares
-            item.setShares(item.getShares() - shares);
-        }
-
-        // Record transaction
+        // Apply, record and journal the transaction
         Transaction transaction = new Transaction(symbol, Transaction.Type.SELL, shares, pricePerShare);
-        transactions.add(transaction);
-
-        // Save and notify
-        saveToPreferences();
+        balance = applyTransaction(portfolioMap, balance, transaction);
+        balanceLiveData.setValue(balance);
+        syncQuoteSymbols();
+        recordTransaction(transaction);
         notifyPortfolioChanged();
 
         Log.d(TAG, "Sold " + shares + " shares of " + symbol + " at $" + pricePerShare);
         return true;
     }
 
+    /**
+     * Loads one page of transaction history, newest first, including every trade made
+     * before this call. Pass the last transaction of the previous page to get the next one,
+     * e.g. when a history list scrolls near its end.
+     *
+     * @param after Last transaction of the previous page, or null for the first page
+     */
+    public void loadTransactionPage(TransactionQuery query, Transaction after, int pageSize,
+                                    TransactionPageCallback callback) {
+        journal.runAfterPendingWrites(() -> {
+            TransactionPage page;
+            try {
+                page = journal.getHistory().queryPage(query, after, pageSize);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error loading transaction history", e);
+                page = new TransactionPage(new ArrayList<>(), false);
+            }
+            TransactionPage result = page;
+            handler.post(() -> callback.onPageLoaded(result));
+        });
+    }
+
     /**
      * Update current price for a stock in portfolio
      */
@@ -274,12 +290,16 @@ public class PortfolioRepository {
      * Reset portfolio to initial state
      */
     public void resetPortfolio() {
-        portfolioMap.clear();
-        transactions.clear();
-        balanceLiveData.setValue(INITIAL_BALANCE);
-        saveToPreferences();
-        notifyPortfolioChanged();
-        Log.d(TAG, "Portfolio reset to initial state");
+        pendingOperations.runWhenReady(() -> {
+            portfolioMap.clear();
+            syncQuoteSymbols();
+            balance = INITIAL_BALANCE;
+            balanceLiveData.setValue(balance);
+            journal.appendReset(System.currentTimeMillis());
+            writeSnapshot(null);
+            notifyPortfolioChanged();
+            Log.d(TAG, "Portfolio reset to initial state");
+        });
     }
 
     /**
@@ -291,31 +311,164 @@ public class PortfolioRepository {
     }
 
     /**
-     * Save portfolio to SharedPreferences
+     * Applies a buy or sell to positions and a balance. Shared by live trades and
+     * journal replay so both always produce the same state.
+     *
+     * @return The balance after the transaction
      */
-    private void saveToPreferences() {
-        List<PortfolioItem> items = new ArrayList<>(portfolioMap.values());
-        String portfolioJson = gson.toJson(items);
-        String transactionsJson = gson.toJson(transactions);
-        double balance = getCurrentBalance();
-
-        boolean success = sharedPreferences.edit()
-                .putString(KEY_PORTFOLIO, portfolioJson)
-                .putString(KEY_TRANSACTIONS, transactionsJson)
-                .putFloat(KEY_BALANCE, (float) balance)
-                .commit();
-
-        if (success) {
-            Log.d(TAG, "Portfolio saved successfully");
+    private static double applyTransaction(Map<String, PortfolioItem> positions, double balance,
+                                           Transaction transaction) {
+        String symbol = transaction.getSymbol();
+        double shares = transaction.getShares();
+        double amount = shares * transaction.getPrice();
+        PortfolioItem item = positions.get(symbol);
+
+        if (transaction.getType() == Transaction.Type.BUY) {
+            if (item != null) {
+                // Add to existing position
+                item.addShares(shares, transaction.getPrice());
+            } else {
+                // Create new position
+                positions.put(symbol, new PortfolioItem(symbol, shares, transaction.getPrice()));
+            }
+            return balance - amount;
+        }
+
+        if (item != null) {
+            if (item.getShares() == shares) {
+                // Selling all shares - remove from portfolio
+                positions.remove(symbol);
+            } else {
+                // Selling partial shares
+                item.setShares(item.getShares() - shares);
+            }
+        }
+        return balance + amount;
+    }
+
+    /**
+     * Journals a transaction (which also adds it to the history), snapshotting periodically
+     */
+    private void recordTransaction(Transaction transaction) {
+        journal.appendTransaction(transaction);
+
+        transactionsSinceSnapshot++;
+        if (transactionsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+            writeSnapshot(null);
+        }
+    }
+
+    /**
+     * Queues a snapshot of a copy of the current positions and balance
+     */
+    private void writeSnapshot(Runnable onDurable) {
+        journal.writeSnapshot(createSnapshot(portfolioMap, balance), onDurable);
+        transactionsSinceSnapshot = 0;
+    }
+
+    private static TransactionJournal.Snapshot createSnapshot(Map<String, PortfolioItem> positions,
+                                                              double balance) {
+        List<PortfolioItem> items = new ArrayList<>(positions.size());
+        for (PortfolioItem item : positions.values()) {
+            items.add(new PortfolioItem(item));
+        }
+        return new TransactionJournal.Snapshot(balance, items);
+    }
+
+    /**
+     * Loads the portfolio from the journal on the disk thread, migrating from
+     * SharedPreferences first if the old format is still present. The result is handed to
+     * the main thread; nothing here touches the live state.
+     */
+    private void loadPortfolio() {
+        LoadedPortfolio loaded = new LoadedPortfolio();
+
+        if (hasLegacyPreferences()) {
+            // Any journal files are from a migration that didn't finish; redo it
+            journal.discard();
+            loadFromPreferences(loaded);
+            migrateToJournal(loaded);
         } else {
-            Log.e(TAG, "Failed to save portfolio");
+            journal.load(new TransactionJournal.ReplayListener() {
+                @Override
+                public void onSnapshot(TransactionJournal.Snapshot snapshot) {
+                    for (PortfolioItem item : snapshot.items) {
+                        loaded.positions.put(item.getSymbol(), item);
+                    }
+                    loaded.balance = snapshot.balance;
+                }
+
+                @Override
+                public void onTransaction(Transaction transaction, boolean afterSnapshot) {
+                    if (afterSnapshot) {
+                        loaded.balance = applyTransaction(loaded.positions, loaded.balance, transaction);
+                        loaded.transactionsSinceSnapshot++;
+                    }
+                }
+
+                @Override
+                public void onReset(boolean afterSnapshot) {
+                    if (afterSnapshot) {
+                        loaded.positions.clear();
+                        loaded.balance = INITIAL_BALANCE;
+                    }
+                }
+            });
+        }
+
+        Log.d(TAG, "Loaded " + loaded.positions.size() + " portfolio items, "
+                + loaded.transactionsSinceSnapshot + " trades since the last snapshot");
+        AppExecutors.getInstance().mainThread().execute(() -> onPortfolioLoaded(loaded));
+    }
+
+    /**
+     * Publishes the loaded state, then runs what was held back while loading
+     */
+    private void onPortfolioLoaded(LoadedPortfolio loaded) {
+        portfolioMap.putAll(loaded.positions);
+        balance = loaded.balance;
+        transactionsSinceSnapshot = loaded.transactionsSinceSnapshot;
+
+        loadingLiveData.setValue(false);
+        balanceLiveData.setValue(balance);
+        notifyPortfolioChanged();
+        pendingOperations.markReady();
+
+        if (transactionsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+            writeSnapshot(null);
         }
+        // Starts the price updates if a screen asked for them while loading
+        syncQuoteSymbols();
+    }
+
+    private boolean hasLegacyPreferences() {
+        return sharedPreferences.contains(KEY_PORTFOLIO)
+                || sharedPreferences.contains(KEY_TRANSACTIONS)
+                || sharedPreferences.contains(KEY_BALANCE);
     }
 
     /**
-     * Load portfolio from SharedPreferences
+     * Writes the state loaded from SharedPreferences to the journal (and so the history),
+     * then removes the old keys once the snapshot is durable.
      */
-    private void loadFromPreferences() {
+    private void migrateToJournal(LoadedPortfolio loaded) {
+        for (Transaction transaction : loaded.legacyTransactions) {
+            journal.appendTransaction(transaction);
+        }
+        journal.writeSnapshot(createSnapshot(loaded.positions, loaded.balance), () -> {
+            boolean success = sharedPreferences.edit()
+                    .remove(KEY_PORTFOLIO)
+                    .remove(KEY_TRANSACTIONS)
+                    .remove(KEY_BALANCE)
+                    .commit();
+            Log.d(TAG, success ? "Migrated portfolio to journal" : "Failed to clear old portfolio preferences");
+        });
+    }
+
+    /**
+     * Load portfolio from SharedPreferences (format used before the journal)
+     */
+    private void loadFromPreferences(LoadedPortfolio loaded) {
         // Load portfolio items
         String portfolioJson = sharedPreferences.getString(KEY_PORTFOLIO, null);
         if (portfolioJson != null) {
@@ -325,7 +478,7 @@ public class PortfolioRepository {
 
                 if (items != null) {
                     for (PortfolioItem item : items) {
-                        portfolioMap.put(item.getSymbol(), item);
+                        loaded.positions.put(item.getSymbol(), item);
                     }
                     Log.d(TAG, "Loaded " + items.size() + " portfolio items");
                 }
@@ -342,7 +495,7 @@ public class PortfolioRepository {
                 List<Transaction> loadedTransactions = gson.fromJson(transactionsJson, type);
 
                 if (loadedTransactions != null) {
-                    transactions.addAll(loadedTransactions);
+                    loaded.legacyTransactions.addAll(loadedTransactions);
                     Log.d(TAG, "Loaded " + loadedTransactions.size() + " transactions");
                 }
             } catch (Exception e) {
@@ -351,10 +504,17 @@ public class PortfolioRepository {
         }
 
         // Load balance
-        float balance = sharedPreferences.getFloat(KEY_BALANCE, (float) INITIAL_BALANCE);
-        balanceLiveData.setValue((double) balance);
+        loaded.balance = sharedPreferences.getFloat(KEY_BALANCE, (float) INITIAL_BALANCE);
+    }
 
-        // Notify observers
-        notifyPortfolioChanged();
+    /**
+     * State read on the disk thread before it is published
+     */
+    private static class LoadedPortfolio {
+        final Map<String, PortfolioItem> positions = new HashMap<>();
+        // Only set when migrating from SharedPreferences
+        final List<Transaction> legacyTransactions = new ArrayList<>();
+        double balance = INITIAL_BALANCE;
+        int transactionsSinceSnapshot = 0;
     }
 }
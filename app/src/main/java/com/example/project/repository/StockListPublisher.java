@@ -0,0 +1,61 @@
+package com.example.project.repository;
+
+import android.view.Choreographer;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.project.model.Stock;
+import com.example.project.model.StockListUpdate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batches stock list changes into at most one {@link StockListUpdate} per display frame.
+ * Changes only mark symbols dirty; the list is copied once when the frame publishes.
+ * Main thread only.
+ */
+class StockListPublisher implements Choreographer.FrameCallback {
+    private final Map<String, Stock> stocks;
+    private final MutableLiveData<StockListUpdate> liveData;
+    private final Set<String> dirtySymbols = new HashSet<>();
+    private boolean structureChanged = false;
+    private boolean scheduled = false;
+
+    StockListPublisher(Map<String, Stock> stocks, MutableLiveData<StockListUpdate> liveData) {
+        this.stocks = stocks;
+        this.liveData = liveData;
+    }
+
+    void markChanged(String symbol) {
+        dirtySymbols.add(symbol);
+        schedule();
+    }
+
+    /**
+     * Stocks were added or removed
+     */
+    void markStructureChanged() {
+        structureChanged = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled = false;
+        StockListUpdate update = new StockListUpdate(new ArrayList<>(stocks.values()),
+                new HashSet<>(dirtySymbols), structureChanged);
+        dirtySymbols.clear();
+        structureChanged = false;
+        liveData.setValue(update);
+    }
+}
@@ -8,52 +8,99 @@ import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 
 import com.example.project.model.Stock;
+import com.example.project.model.StockListUpdate;
 import com.example.project.model.StockQuote;
-import com.example.project.service.FinnhubApiService;
+import com.example.project.service.CandleAggregator;
+import com.example.project.service.FinnhubRequestScheduler;
+import com.example.project.service.FinnhubWebSocketClient;
+import com.example.project.service.QuoteRefreshEngine;
+import com.example.project.service.TradeConflator;
+import com.example.project.util.AppExecutors;
+import com.example.project.util.PriceFormatter;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Repository for managing stock data with 30-second polling
+ * Repository for managing stock data.
+ * Prices are streamed from the Finnhub WebSocket trade feed; REST quotes are only used
+ * for the initial snapshot of each symbol and as a polling fallback while the socket is
+ * down, both through the shared {@link QuoteRefreshEngine}. Screens can also watch a
+ * symbol outside the watchlist to receive its live trades and have intraday bars built
+ * for it. The saved watchlist is read on a background thread; watchlist changes made
+ * before it has loaded are applied afterwards.
+ * Price changes are batched by a {@link StockListPublisher} into at most one list update
+ * per frame.
  */
 public class StockRepository {
     private static final String TAG = "StockRepository";
     private static final String PREFS_NAME = "stock_watchlist_prefs";
     private static final String KEY_WATCHLIST = "watchlist";
-    private static final long POLLING_INTERVAL = 30000; // 30 seconds
 
     private static StockRepository instance;
     private final SharedPreferences sharedPreferences;
     private final Gson gson;
-    private final FinnhubApiService apiService;
+    private final QuoteRefreshEngine.Subscription quoteSubscription;
+    private final FinnhubWebSocketClient webSocketClient;
+    private final TradeConflator tradeConflator;
+    private final CandleAggregator candleAggregator;
     private final Handler mainHandler;
 
+    // Reference counts of symbols watched by open screens; main thread only
+    private final Map<String, Integer> watchCounts;
+    private final List<LiveTradeListener> liveTradeListeners;
+
     private final Map<String, Stock> stockMap;
-    private final MutableLiveData<List<Stock>> stockListLiveData;
+    private final MutableLiveData<StockListUpdate> stockUpdatesLiveData;
+    private final LiveData<List<Stock>> stockListLiveData;
+    private final StockListPublisher stockListPublisher;
     private final MutableLiveData<Boolean> connectionStatusLiveData;
+    private final MutableLiveData<Boolean> loadingLiveData;
+    private final PendingOperations pendingOperations;
 
-    private Runnable pollingRunnable;
-    private boolean isPolling = false;
+    private boolean isRunning = false;
+    private boolean isStreaming = false;
 
     private StockRepository(Context context) {
         this.sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         this.gson = new Gson();
-        this.apiService = new FinnhubApiService();
+        this.quoteSubscription = QuoteRefreshEngine.getInstance().subscribe(this::updateStockPrice);
+        this.webSocketClient = new FinnhubWebSocketClient();
+        this.tradeConflator = new TradeConflator();
+        this.candleAggregator = CandleAggregator.getInstance();
+        this.watchCounts = new HashMap<>();
+        this.liveTradeListeners = new CopyOnWriteArrayList<>();
         this.mainHandler = new Handler(Looper.getMainLooper());
-        this.stockMap = new HashMap<>();
-        this.stockListLiveData = new MutableLiveData<>(new ArrayList<>());
+        // Insertion order, so published lists keep the order stocks were added in
+        this.stockMap = new LinkedHashMap<>();
+        this.stockUpdatesLiveData = new MutableLiveData<>(
+                new StockListUpdate(new ArrayList<>(), new HashSet<>(), true));
+        this.stockListLiveData = Transformations.map(stockUpdatesLiveData, StockListUpdate::getStocks);
+        this.stockListPublisher = new StockListPublisher(stockMap, stockUpdatesLiveData);
         this.connectionStatusLiveData = new MutableLiveData<>(false);
+        this.loadingLiveData = new MutableLiveData<>(true);
+        this.pendingOperations = new PendingOperations();
 
-        loadWatchlistFromPreferences();
-        setupPolling();
+        setupStreaming();
+        AppExecutors.getInstance().diskIO().execute(this::loadWatchlistFromPreferences);
+    }
+
+    /**
+     * Receives conflated trades of watched symbols on the main thread.
+     */
+    public interface LiveTradeListener {
+        void onLiveTrade(String symbol, double price, long timestamp);
     }
 
     public static synchronized StockRepository getInstance(Context context) {
@@ -63,76 +110,138 @@ public class StockRepository {
         return instance;
     }
 
-    private void setupPolling() {
-        pollingRunnable = new Runnable() {
+    private void setupStreaming() {
+        webSocketClient.setTradeUpdateListener(new FinnhubWebSocketClient.TradeUpdateListener() {
             @Override
-            public void run() {
-                if (isPolling) {
-                    fetchAllStockPrices();
-                    mainHandler.postDelayed(this, POLLING_INTERVAL);
+            public void onTrade(String symbol, double price, double volume, long timestamp) {
+                // Runs on the socket thread; the conflator hands the main thread at most
+                // one update per symbol per publish interval.
+                if (symbol != null && price > 0) {
+                    candleAggregator.onTrade(symbol, price, volume, timestamp);
+                    tradeConflator.onTrade(symbol, price, volume, timestamp);
                 }
             }
-        };
+
+            @Override
+            public void onConnectionStatusChanged(boolean connected) {
+                mainHandler.post(() -> onStreamingStatusChanged(connected));
+            }
+        });
+
+        tradeConflator.setListener(new TradeConflator.ConflatedTradeListener() {
+            @Override
+            public void onConflatedTrade(String symbol, double price, double streamedVolume, long timestamp) {
+                Stock stock = stockMap.get(symbol);
+                if (stock != null) {
+                    stock.setCurrentPrice(price);
+                    stock.setPriceTimestamp(Math.max(stock.getPriceTimestamp(), timestamp));
+                    stock.setStreamedVolume(streamedVolume);
+                    stock.calculateChangePercentFromOpening();
+                    stockListPublisher.markChanged(symbol);
+                }
+                if (watchCounts.containsKey(symbol)) {
+                    for (LiveTradeListener listener : liveTradeListeners) {
+                        listener.onLiveTrade(symbol, price, timestamp);
+                    }
+                }
+            }
+
+            @Override
+            public void onConflationBatchComplete() {
+                // The publisher already batches per frame
+            }
+        });
     }
 
-    private void fetchAllStockPrices() {
-        if (stockMap.isEmpty()) {
+    /**
+     * Switches between the WebSocket feed and the REST polling fallback.
+     */
+    private void onStreamingStatusChanged(boolean connected) {
+        if (connected == isStreaming) {
             return;
         }
+        isStreaming = connected;
 
-        Log.d(TAG, "Fetching prices for " + stockMap.size() + " stocks");
-
-        for (String symbol : new ArrayList<>(stockMap.keySet())) {
-            apiService.fetchQuote(symbol, new FinnhubApiService.QuoteCallback() {
-                @Override
-                public void onSuccess(StockQuote quote) {
-                    mainHandler.post(() -> updateStockPrice(symbol, quote));
-                }
+        if (!isRunning) {
+            return;
+        }
 
-                @Override
-                public void onError(String error) {
-                    Log.e(TAG, "Error fetching quote for " + symbol + ": " + error);
-                }
-            });
+        if (connected) {
+            // The client replays its desired symbol set itself on every (re)connect
+            quoteSubscription.setActive(false);
+            Log.d(TAG, "Streaming " + stockMap.size() + " symbols, REST polling paused");
+        } else {
+            // Socket is down, keep prices moving with REST quotes until it comes back
+            quoteSubscription.setActive(true);
+            Log.d(TAG, "Streaming unavailable, falling back to 30-second polling");
         }
     }
 
     private void updateStockPrice(String symbol, StockQuote quote) {
         Stock stock = stockMap.get(symbol);
         if (stock != null) {
-            // Set opening price (previous close)
-            if (stock.getCurrentPrice() == 0) {
-                stock.setOpeningPrice(quote.getPreviousClose());
+            // Previous close is the baseline for the % change of streamed trades
+            stock.setOpeningPrice(quote.getPreviousClose());
+
+            // A quote can be older than the last streamed trade, e.g. the snapshot taken
+            // when a symbol is added or the socket was already open; keep the newer price
+            long quoteTime = quote.getTimestamp() * 1000L;
+            if (stock.getPriceTimestamp() == 0 || quoteTime > stock.getPriceTimestamp()) {
+                stock.setCurrentPrice(quote.getCurrentPrice());
+                stock.setPriceTimestamp(quoteTime);
             }
 
-            // Update current price
-            stock.setCurrentPrice(quote.getCurrentPrice());
+            // Change percent from the price kept, against the new baseline
+            stock.calculateChangePercentFromOpening();
 
-            // Calculate change percent
-            double change = quote.getCurrentPrice() - quote.getPreviousClose();
-            double changePercent = (change / quote.getPreviousClose()) * 100;
-            stock.setChangePercent(changePercent);
-
-            Log.d(TAG, symbol + " updated: $" + quote.getCurrentPrice() + " (" + String.format("%.2f", changePercent) + "%)");
+            Log.d(TAG, symbol + " updated: " + PriceFormatter.formatPrice(stock.getCurrentPrice())
+                    + " (" + PriceFormatter.formatSignedPercent(stock.getChangePercent()) + ")");
+            stockListPublisher.markChanged(symbol);
         }
-        notifyStockListChanged();
     }
 
     public void connect() {
-        if (!isPolling) {
-            isPolling = true;
+        if (!isRunning) {
+            isRunning = true;
             connectionStatusLiveData.setValue(true);
-            Log.d(TAG, "Starting 30-second polling");
-            mainHandler.post(pollingRunnable);
+            Log.d(TAG, "Starting streaming mode");
+
+            for (String symbol : stockMap.keySet()) {
+                webSocketClient.subscribe(symbol);
+            }
+
+            if (webSocketClient.isConnected()) {
+                // Socket kept open for a watched symbol; only the REST snapshot is needed
+                isStreaming = true;
+                quoteSubscription.refreshNow();
+            } else {
+                // First polling pass is the REST snapshot (previous close + price before the
+                // first trade); polling keeps running until the socket reports it is open.
+                quoteSubscription.setActive(true);
+                webSocketClient.connect();
+            }
         }
     }
 
     public void disconnect() {
-        if (isPolling) {
-            isPolling = false;
+        if (isRunning) {
+            isRunning = false;
+            isStreaming = false;
             connectionStatusLiveData.setValue(false);
-            mainHandler.removeCallbacks(pollingRunnable);
-            Log.d(TAG, "Stopped polling");
+            quoteSubscription.setActive(false);
+            if (watchCounts.isEmpty()) {
+                webSocketClient.disconnect();
+                tradeConflator.clear();
+            } else {
+                // A screen is still watching; keep the socket for its symbols only
+                for (String symbol : stockMap.keySet()) {
+                    if (!watchCounts.containsKey(symbol)) {
+                        webSocketClient.unsubscribe(symbol);
+                        tradeConflator.remove(symbol);
+                    }
+                }
+            }
+            Log.d(TAG, "Stopped streaming and polling");
         }
     }
 
@@ -143,7 +252,10 @@ public class StockRepository {
         }
 
         String upperSymbol = symbol.trim().toUpperCase();
+        pendingOperations.runWhenReady(() -> addLoadedStock(upperSymbol));
+    }
 
+    private void addLoadedStock(String upperSymbol) {
         if (stockMap.containsKey(upperSymbol)) {
             Log.d(TAG, "Stock already in watchlist: " + upperSymbol);
             return;
@@ -151,19 +263,14 @@ public class StockRepository {
 
         Stock stock = new Stock(upperSymbol);
         stockMap.put(upperSymbol, stock);
+        quoteSubscription.addSymbol(upperSymbol);
 
-        // Fetch initial price immediately
-        apiService.fetchQuote(upperSymbol, new FinnhubApiService.QuoteCallback() {
-            @Override
-            public void onSuccess(StockQuote quote) {
-                mainHandler.post(() -> updateStockPrice(upperSymbol, quote));
-            }
+        if (isRunning) {
+            webSocketClient.subscribe(upperSymbol);
+        }
 
-            @Override
-            public void onError(String error) {
-                Log.e(TAG, "Error fetching initial quote for " + upperSymbol + ": " + error);
-            }
-        });
+        // Fetch initial price immediately
+        quoteSubscription.refreshNow(upperSymbol, FinnhubRequestScheduler.Priority.FOREGROUND_QUOTE);
 
         saveWatchlistToPreferences();
         notifyStockListChanged();
@@ -176,70 +283,177 @@ public class StockRepository {
         }
 
         String upperSymbol = symbol.toUpperCase();
+        pendingOperations.runWhenReady(() -> removeLoadedStock(upperSymbol));
+    }
+
+    private void removeLoadedStock(String upperSymbol) {
         Stock removed = stockMap.remove(upperSymbol);
 
         if (removed != null) {
+            quoteSubscription.removeSymbol(upperSymbol);
+            if (!watchCounts.containsKey(upperSymbol)) {
+                webSocketClient.unsubscribe(upperSymbol);
+                tradeConflator.remove(upperSymbol);
+            }
             saveWatchlistToPreferences();
             notifyStockListChanged();
             Log.d(TAG, "Removed stock: " + upperSymbol);
         }
     }
 
+    /**
+     * Streams a symbol for an open screen, such as the detail chart, whether or not it is
+     * in the watchlist. Calls are reference counted and must be paired with
+     * {@link #unwatchSymbol(String, LiveTradeListener)}.
+     */
+    public void watchSymbol(String symbol, LiveTradeListener listener) {
+        String upperSymbol = symbol.trim().toUpperCase();
+        if (listener != null) {
+            liveTradeListeners.add(listener);
+        }
+
+        Integer count = watchCounts.get(upperSymbol);
+        watchCounts.put(upperSymbol, count == null ? 1 : count + 1);
+        if (count == null) {
+            candleAggregator.track(upperSymbol);
+            webSocketClient.subscribe(upperSymbol);
+            webSocketClient.connect(); // no-op when already connected
+            Log.d(TAG, "Watching " + upperSymbol);
+        }
+    }
+
+    public void unwatchSymbol(String symbol, LiveTradeListener listener) {
+        String upperSymbol = symbol.trim().toUpperCase();
+        if (listener != null) {
+            liveTradeListeners.remove(listener);
+        }
+
+        Integer count = watchCounts.get(upperSymbol);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            watchCounts.put(upperSymbol, count - 1);
+            return;
+        }
+
+        watchCounts.remove(upperSymbol);
+        candleAggregator.untrack(upperSymbol);
+        if (!isRunning || !stockMap.containsKey(upperSymbol)) {
+            webSocketClient.unsubscribe(upperSymbol);
+            tradeConflator.remove(upperSymbol);
+        }
+        if (!isRunning && watchCounts.isEmpty()) {
+            webSocketClient.disconnect();
+        }
+        Log.d(TAG, "Stopped watching " + upperSymbol);
+    }
+
+    /**
+     * Stocks were added or removed; published with the next frame
+     */
     private void notifyStockListChanged() {
-        List<Stock> stockList = new ArrayList<>(stockMap.values());
-        stockListLiveData.setValue(stockList);
+        stockListPublisher.markStructureChanged();
     }
 
     /**
      * ✅ แก้: บันทึก watchlist ให้มั่นใจว่า commit สำเร็จ
+     * The symbols are captured here; the commit runs on the disk thread, in call order.
      */
     private void saveWatchlistToPreferences() {
         List<String> symbols = new ArrayList<>(stockMap.keySet());
         String json = gson.toJson(symbols);
 
-        // ใช้ commit() แทน apply() เพื่อให้บันทึกทันที
-        boolean success = sharedPreferences.edit()
-                .putString(KEY_WATCHLIST, json)
-                .commit();
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            // ใช้ commit() แทน apply() เพื่อให้บันทึกทันที
+            boolean success = sharedPreferences.edit()
+                    .putString(KEY_WATCHLIST, json)
+                    .commit();
 
-        if (success) {
-            Log.d(TAG, "Watchlist saved successfully: " + symbols);
-        } else {
-            Log.e(TAG, "Failed to save watchlist");
-        }
+            if (success) {
+                Log.d(TAG, "Watchlist saved successfully: " + symbols);
+            } else {
+                Log.e(TAG, "Failed to save watchlist");
+            }
+        });
     }
 
+    /**
+     * Reads the saved symbols on the disk thread and hands them to the main thread
+     */
     private void loadWatchlistFromPreferences() {
+        List<String> symbols = new ArrayList<>();
         String json = sharedPreferences.getString(KEY_WATCHLIST, null);
 
         if (json != null) {
             try {
                 Type type = new TypeToken<List<String>>() {}.getType();
-                List<String> symbols = gson.fromJson(json, type);
+                List<String> saved = gson.fromJson(json, type);
 
-                if (symbols != null) {
-                    for (String symbol : symbols) {
-                        Stock stock = new Stock(symbol);
-                        stockMap.put(symbol, stock);
-                    }
-                    notifyStockListChanged();
-                    Log.d(TAG, "Loaded " + symbols.size() + " stocks from preferences");
+                if (saved != null) {
+                    symbols.addAll(saved);
+                    Log.d(TAG, "Loaded " + saved.size() + " stocks from preferences");
                 }
             } catch (Exception e) {
                 Log.e(TAG, "Error loading watchlist from preferences", e);
             }
         }
+
+        AppExecutors.getInstance().mainThread().execute(() -> onWatchlistLoaded(symbols));
     }
 
+    private void onWatchlistLoaded(List<String> symbols) {
+        for (String symbol : symbols) {
+            stockMap.put(symbol, new Stock(symbol));
+        }
+        quoteSubscription.setSymbols(stockMap.keySet());
+
+        if (isRunning && !symbols.isEmpty()) {
+            // connect() ran before the symbols were known
+            for (String symbol : symbols) {
+                webSocketClient.subscribe(symbol);
+            }
+            quoteSubscription.refreshNow();
+        }
+
+        loadingLiveData.setValue(false);
+        notifyStockListChanged();
+        pendingOperations.markReady();
+    }
+
+    /**
+     * The current stocks, at most once per frame. Derived from {@link #getStockUpdates()}.
+     */
     public LiveData<List<Stock>> getStockList() {
         return stockListLiveData;
     }
 
+    /**
+     * Batched stock list updates with the symbols that changed in each
+     */
+    public LiveData<StockListUpdate> getStockUpdates() {
+        return stockUpdatesLiveData;
+    }
+
+    /**
+     * Whether the saved watchlist is still being loaded
+     */
+    public LiveData<Boolean> isLoading() {
+        return loadingLiveData;
+    }
+
     public LiveData<Boolean> getConnectionStatus() {
         return connectionStatusLiveData;
     }
 
     public boolean isConnected() {
-        return isPolling;
+        return isRunning;
+    }
+
+    /**
+     * Whether prices are currently arriving over the WebSocket rather than REST polling.
+     */
+    public boolean isStreaming() {
+        return isStreaming;
     }
 }
\ No newline at end of file
@@ -0,0 +1,606 @@
+package com.example.project.repository;
+
+import android.util.Log;
+
+import com.example.project.model.PortfolioItem;
+import com.example.project.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of portfolio transactions plus a snapshot of positions.
+ * Each record is framed as [length][payload][CRC32] so a torn write at the end of the file
+ * is detected and cut off on replay. Appends are written by a background thread; all
+ * records queued since the last write share one fsync. Every so often the repository
+ * writes a snapshot of its positions and balance (temp file + rename, so it is atomic)
+ * tagged with the journal offset it covers, and replay only re-applies records after it.
+ * Durable records are copied to the {@link TransactionStore}, which keeps the history, so
+ * the journal is cut back to empty after each snapshot and stays small. Records that could
+ * not be written are kept and retried with the next batch; they only reach the history
+ * once they are in the journal or a snapshot covers them.
+ */
+class TransactionJournal {
+    private static final String TAG = "TransactionJournal";
+    private static final String JOURNAL_FILE = "journal.bin";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final int JOURNAL_MAGIC = 0x54584E4A; // "TXNJ"
+    private static final int SNAPSHOT_MAGIC = 0x54584E53; // "TXNS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 4096;
+
+    private static final byte RECORD_BUY = 0;
+    private static final byte RECORD_SELL = 1;
+    private static final byte RECORD_RESET = 2;
+
+    private final File directory;
+    private final File journalFile;
+    private final File snapshotFile;
+    private final TransactionStore history;
+    private final ExecutorService writer;
+    // Records, SnapshotRequests and tasks, in the order they were made
+    private final Queue<Object> pending;
+    private final AtomicBoolean flushScheduled;
+
+    // Writer thread only
+    private FileOutputStream journalOut;
+    private long journalLength;
+    // Records whose write failed, oldest first
+    private final List<Record> unjournaled = new ArrayList<>();
+    // Snapshot still anchored past the end of the journal; nothing may be appended until
+    // it is re-anchored, or replay would count the new records as covered by it
+    private Snapshot unanchoredSnapshot;
+
+    /**
+     * Receives the stored state on load: the snapshot first, then the journal oldest first.
+     */
+    interface ReplayListener {
+        void onSnapshot(Snapshot snapshot);
+
+        /**
+         * @param afterSnapshot true if the snapshot does not include this transaction yet
+         */
+        void onTransaction(Transaction transaction, boolean afterSnapshot);
+
+        void onReset(boolean afterSnapshot);
+    }
+
+    /**
+     * Positions and balance at a point in the journal.
+     */
+    static class Snapshot {
+        final double balance;
+        final List<PortfolioItem> items;
+
+        Snapshot(double balance, List<PortfolioItem> items) {
+            this.balance = balance;
+            this.items = items;
+        }
+    }
+
+    /**
+     * An encoded record and the transaction it holds (null for a reset)
+     */
+    private static class Record {
+        final byte[] payload;
+        final Transaction transaction;
+
+        Record(byte[] payload, Transaction transaction) {
+            this.payload = payload;
+            this.transaction = transaction;
+        }
+    }
+
+    private static class SnapshotRequest {
+        final Snapshot snapshot;
+        final Runnable onDurable;
+
+        SnapshotRequest(Snapshot snapshot, Runnable onDurable) {
+            this.snapshot = snapshot;
+            this.onDurable = onDurable;
+        }
+    }
+
+    TransactionJournal(File directory, TransactionStore history) {
+        this.directory = directory;
+        this.history = history;
+        this.journalFile = new File(directory, JOURNAL_FILE);
+        this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+        this.writer = Executors.newSingleThreadExecutor();
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.flushScheduled = new AtomicBoolean(false);
+    }
+
+    TransactionStore getHistory() {
+        return history;
+    }
+
+    /**
+     * Deletes the journal and snapshot, e.g. to redo an interrupted migration. Replaces
+     * {@link #load} on startup; appends then start a new journal.
+     */
+    void discard() {
+        if (journalFile.exists() && !journalFile.delete()) {
+            Log.w(TAG, "Could not delete " + journalFile.getName());
+        }
+        if (snapshotFile.exists() && !snapshotFile.delete()) {
+            Log.w(TAG, "Could not delete " + snapshotFile.getName());
+        }
+    }
+
+    /**
+     * Reads the snapshot and replays the journal. A torn or corrupt tail is truncated so
+     * later appends continue from the last intact record. Must be called before any append
+     * unless the journal was discarded.
+     */
+    void load(ReplayListener listener) {
+        long snapshotOffset = HEADER_SIZE;
+        Snapshot snapshot = null;
+        if (snapshotFile.exists()) {
+            try {
+                long[] offset = new long[1];
+                snapshot = readSnapshotFile(offset);
+                snapshotOffset = offset[0];
+            } catch (IOException e) {
+                Log.e(TAG, "Ignoring unreadable snapshot, replaying the whole journal", e);
+            }
+        }
+
+        if (snapshot != null) {
+            listener.onSnapshot(snapshot);
+        }
+
+        // Re-store the journaled transactions in case the app died before they reached the
+        // history; duplicates are ignored by the store
+        List<Transaction> sinceReset = new ArrayList<>();
+        boolean[] resetSeen = new boolean[1];
+        journalLength = replay(new ReplayListener() {
+            @Override
+            public void onSnapshot(Snapshot ignored) {
+            }
+
+            @Override
+            public void onTransaction(Transaction transaction, boolean afterSnapshot) {
+                sinceReset.add(transaction);
+                listener.onTransaction(transaction, afterSnapshot);
+            }
+
+            @Override
+            public void onReset(boolean afterSnapshot) {
+                sinceReset.clear();
+                resetSeen[0] = true;
+                listener.onReset(afterSnapshot);
+            }
+        }, snapshotOffset);
+        try {
+            if (resetSeen[0]) {
+                history.clear();
+            }
+            history.insert(sinceReset);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to restore transaction history", e);
+        }
+
+        if (snapshot != null && journalLength < snapshotOffset) {
+            // Records the snapshot covers were lost; re-anchor it so new records count as after it
+            Log.w(TAG, "Journal shorter than snapshot offset, re-anchoring snapshot");
+            Snapshot current = snapshot;
+            writer.execute(() -> anchorSnapshot(current));
+        }
+    }
+
+    void appendTransaction(Transaction transaction) {
+        enqueue(new Record(encodeTransaction(transaction), transaction));
+    }
+
+    void appendReset(long timestamp) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(RECORD_RESET);
+            out.writeLong(timestamp);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        enqueue(new Record(bytes.toByteArray(), null));
+    }
+
+    /**
+     * Writes a snapshot covering every record appended before this call, once those
+     * records are durable. The state must not be modified by the caller afterwards.
+     *
+     * @param onDurable Run on the writer thread once the snapshot is on disk, or null
+     */
+    void writeSnapshot(Snapshot snapshot, Runnable onDurable) {
+        enqueue(new SnapshotRequest(snapshot, onDurable));
+    }
+
+    /**
+     * Runs a task on the writer thread once every record appended before this call is in
+     * the history or has failed to be written, e.g. a history query that must see the
+     * latest trades.
+     */
+    void runAfterPendingWrites(Runnable task) {
+        enqueue(task);
+    }
+
+    private void enqueue(Object entry) {
+        pending.add(entry);
+        if (flushScheduled.compareAndSet(false, true)) {
+            writer.execute(() -> {
+                flushScheduled.set(false);
+                flushPending();
+            });
+        }
+    }
+
+    /**
+     * Writes queued records in batches that share one fsync, and runs each queued snapshot
+     * and task right after the records that preceded it
+     */
+    private void flushPending() {
+        while (!pending.isEmpty()) {
+            writeRecordBatch();
+
+            Object head = pending.peek();
+            if (head instanceof SnapshotRequest) {
+                pending.poll();
+                SnapshotRequest request = (SnapshotRequest) head;
+                if (writeSnapshotFile(request.snapshot, journalLength)) {
+                    unanchoredSnapshot = null;
+                    if (!unjournaled.isEmpty()) {
+                        // The snapshot includes the records the journal is missing
+                        storeHistory(unjournaled);
+                        unjournaled.clear();
+                    }
+                    compact(request.snapshot);
+                    if (request.onDurable != null) {
+                        request.onDurable.run();
+                    }
+                }
+            } else if (head instanceof Runnable) {
+                pending.poll();
+                ((Runnable) head).run();
+            }
+        }
+    }
+
+    /**
+     * Cuts the journal back to its header once a snapshot covers all of it, then re-anchors
+     * the snapshot at the empty journal. Dying in between is safe: load re-anchors a
+     * snapshot whose offset is past the end of the journal before anything is appended.
+     * If re-anchoring fails, the next batch retries it before writing.
+     */
+    private void compact(Snapshot snapshot) {
+        if (journalLength <= HEADER_SIZE) {
+            return;
+        }
+
+        closeJournal();
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            file.setLength(HEADER_SIZE);
+            file.getFD().sync();
+        } catch (IOException e) {
+            // The journal keeps its records; the snapshot still marks them as covered
+            Log.e(TAG, "Failed to compact journal", e);
+            return;
+        }
+        journalLength = HEADER_SIZE;
+        anchorSnapshot(snapshot);
+    }
+
+    /**
+     * Points a snapshot at the current end of the journal
+     *
+     * @return false if it could not be written; it is then retried before the next batch
+     */
+    private boolean anchorSnapshot(Snapshot snapshot) {
+        if (writeSnapshotFile(snapshot, journalLength)) {
+            unanchoredSnapshot = null;
+            return true;
+        }
+        unanchoredSnapshot = snapshot;
+        return false;
+    }
+
+    /**
+     * Writes the records that failed before plus the queued ones, and copies them to the
+     * history once they are durable
+     */
+    private void writeRecordBatch() {
+        if (!(pending.peek() instanceof Record) && unjournaled.isEmpty()) {
+            return;
+        }
+
+        List<Record> batch = new ArrayList<>(unjournaled);
+        unjournaled.clear();
+        while (pending.peek() instanceof Record) {
+            batch.add((Record) pending.poll());
+        }
+        try {
+            if (unanchoredSnapshot != null && !anchorSnapshot(unanchoredSnapshot)) {
+                throw new IOException("Snapshot is not anchored to the journal");
+            }
+            FileOutputStream out = openJournal();
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            CRC32 crc = new CRC32();
+            long batchLength = 0;
+            for (Record record : batch) {
+                byte[] payload = record.payload;
+                crc.reset();
+                crc.update(payload, 0, payload.length);
+                data.writeInt(payload.length);
+                data.write(payload);
+                data.writeInt((int) crc.getValue());
+                batchLength += 8 + payload.length;
+            }
+            data.flush();
+            out.getFD().sync();
+            journalLength += batchLength;
+            Log.d(TAG, "Journaled " + batch.size() + " record(s)");
+        } catch (IOException e) {
+            // Kept for the next batch, which first truncates whatever part of this one
+            // reached the file; a snapshot written before then includes them anyway
+            Log.e(TAG, "Failed to write journal, keeping " + batch.size() + " record(s) to retry", e);
+            unjournaled.addAll(batch);
+            closeJournal();
+            return;
+        }
+        storeHistory(batch);
+    }
+
+    /**
+     * Copies a batch to the history, in order, clearing it at each reset
+     */
+    private void storeHistory(List<Record> batch) {
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        try {
+            for (Record record : batch) {
+                if (record.transaction != null) {
+                    transactions.add(record.transaction);
+                } else {
+                    history.insert(transactions);
+                    transactions.clear();
+                    history.clear();
+                }
+            }
+            history.insert(transactions);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to store transaction history", e);
+        }
+    }
+
+    private FileOutputStream openJournal() throws IOException {
+        if (journalOut != null) {
+            return journalOut;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        boolean fresh = journalLength < HEADER_SIZE;
+        if (!fresh && journalFile.length() != journalLength) {
+            // Drop a torn tail found on replay (or left by a failed write)
+            try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                file.setLength(journalLength);
+            }
+        }
+
+        journalOut = new FileOutputStream(journalFile, !fresh);
+        if (fresh) {
+            DataOutputStream header = new DataOutputStream(journalOut);
+            header.writeInt(JOURNAL_MAGIC);
+            header.writeInt(FORMAT_VERSION);
+            header.flush();
+            journalLength = HEADER_SIZE;
+        }
+        return journalOut;
+    }
+
+    private void closeJournal() {
+        if (journalOut != null) {
+            try {
+                journalOut.close();
+            } catch (IOException ignored) {
+            }
+            journalOut = null;
+        }
+    }
+
+    /**
+     * Replays every intact record
+     *
+     * @return Length of the intact part of the journal
+     */
+    private long replay(ReplayListener listener, long snapshotOffset) {
+        if (!journalFile.exists()) {
+            return 0;
+        }
+
+        long offset = 0;
+        int replayed = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            if (in.readInt() != JOURNAL_MAGIC || in.readInt() != FORMAT_VERSION) {
+                Log.e(TAG, "Unknown journal format, starting a new journal");
+                return 0;
+            }
+            offset = HEADER_SIZE;
+
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break; // clean end
+                }
+                if (length <= 0 || length > MAX_RECORD_SIZE) {
+                    Log.w(TAG, "Corrupt record length at " + offset + ", truncating");
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                int storedCrc = in.readInt();
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != storedCrc) {
+                    Log.w(TAG, "Checksum mismatch at " + offset + ", truncating");
+                    break;
+                }
+
+                boolean afterSnapshot = offset >= snapshotOffset;
+                decode(payload, listener, afterSnapshot);
+                offset += 8 + length;
+                replayed++;
+            }
+        } catch (EOFException e) {
+            Log.w(TAG, "Torn record at " + offset + ", truncating");
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading journal at " + offset, e);
+        }
+
+        Log.d(TAG, "Replayed " + replayed + " journal records");
+        return offset;
+    }
+
+    private static void decode(byte[] payload, ReplayListener listener, boolean afterSnapshot) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte kind = in.readByte();
+        long timestamp = in.readLong();
+        if (kind == RECORD_RESET) {
+            listener.onReset(afterSnapshot);
+            return;
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setType(kind == RECORD_BUY ? Transaction.Type.BUY : Transaction.Type.SELL);
+        transaction.setTimestamp(timestamp);
+        transaction.setShares(in.readDouble());
+        transaction.setPrice(in.readDouble());
+        transaction.setId(in.readUTF());
+        transaction.setSymbol(in.readUTF());
+        listener.onTransaction(transaction, afterSnapshot);
+    }
+
+    private static byte[] encodeTransaction(Transaction transaction) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(transaction.getType() == Transaction.Type.BUY ? RECORD_BUY : RECORD_SELL);
+            out.writeLong(transaction.getTimestamp());
+            out.writeDouble(transaction.getShares());
+            out.writeDouble(transaction.getPrice());
+            out.writeUTF(transaction.getId() != null ? transaction.getId() : "");
+            out.writeUTF(transaction.getSymbol());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private boolean writeSnapshotFile(Snapshot snapshot, long offset) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Could not create " + directory);
+            return false;
+        }
+
+        File temp = new File(directory, SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(offset);
+            out.writeDouble(snapshot.balance);
+            out.writeInt(snapshot.items.size());
+            for (PortfolioItem item : snapshot.items) {
+                out.writeUTF(item.getSymbol());
+                out.writeDouble(item.getShares());
+                out.writeDouble(item.getAverageCost());
+                out.writeDouble(item.getTotalInvested());
+                out.writeDouble(item.getCurrentPrice());
+            }
+            out.flush();
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray(), 0, bytes.size());
+            out.writeInt((int) crc.getValue());
+            out.flush();
+
+            bytes.writeTo(file);
+            file.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write snapshot", e);
+            return false;
+        }
+
+        if (!temp.renameTo(snapshotFile)) {
+            Log.e(TAG, "Failed to replace snapshot");
+            return false;
+        }
+        Log.d(TAG, "Snapshot written at journal offset " + offset);
+        return true;
+    }
+
+    /**
+     * Reads and verifies the snapshot
+     *
+     * @param offset Receives the journal offset the snapshot covers
+     */
+    private Snapshot readSnapshotFile(long[] offset) throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        int bodyLength = bytes.length - 4;
+        if (bodyLength < 0) {
+            throw new IOException("Truncated snapshot");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bodyLength);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(bodyLength);
+        if ((int) crc.getValue() != in.readInt()) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+
+        in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bodyLength));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown snapshot format");
+        }
+        offset[0] = in.readLong();
+        double balance = in.readDouble();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt snapshot item count: " + count);
+        }
+
+        List<PortfolioItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PortfolioItem item = new PortfolioItem();
+            item.setSymbol(in.readUTF());
+            item.setShares(in.readDouble());
+            item.setAverageCost(in.readDouble());
+            item.setTotalInvested(in.readDouble());
+            item.setCurrentPrice(in.readDouble());
+            items.add(item);
+        }
+        return new Snapshot(balance, items);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.project.repository;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.example.project.model.Transaction;
+import com.example.project.model.TransactionPage;
+import com.example.project.model.TransactionQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite table holding the full transaction history, indexed by symbol, type and time.
+ * Pages are read with keyset pagination on (timestamp, id) so each page costs one index
+ * seek no matter how deep into the history it is. Written by the {@link TransactionJournal}
+ * writer thread once records are durable, and read there too so queries see every trade
+ * made before them. Never used on the main thread.
+ */
+class TransactionStore extends SQLiteOpenHelper {
+    private static final String TAG = "TransactionStore";
+    private static final String DATABASE_NAME = "transactions.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE = "transactions";
+    private static final String COLUMN_ID = "id";
+    private static final String COLUMN_SYMBOL = "symbol";
+    private static final String COLUMN_TYPE = "type";
+    private static final String COLUMN_SHARES = "shares";
+    private static final String COLUMN_PRICE = "price";
+    private static final String COLUMN_TIMESTAMP = "timestamp";
+
+    private static final String[] COLUMNS = {
+            COLUMN_ID, COLUMN_SYMBOL, COLUMN_TYPE, COLUMN_SHARES, COLUMN_PRICE, COLUMN_TIMESTAMP
+    };
+    private static final String ORDER_NEWEST_FIRST = COLUMN_TIMESTAMP + " DESC, " + COLUMN_ID + " DESC";
+
+    TransactionStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Paging reads must not wait for journal inserts
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COLUMN_ID + " TEXT PRIMARY KEY NOT NULL, "
+                + COLUMN_SYMBOL + " TEXT NOT NULL, "
+                + COLUMN_TYPE + " TEXT NOT NULL, "
+                + COLUMN_SHARES + " REAL NOT NULL, "
+                + COLUMN_PRICE + " REAL NOT NULL, "
+                + COLUMN_TIMESTAMP + " INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_transactions_time ON " + TABLE
+                + " (" + COLUMN_TIMESTAMP + ", " + COLUMN_ID + ")");
+        db.execSQL("CREATE INDEX idx_transactions_symbol_time ON " + TABLE
+                + " (" + COLUMN_SYMBOL + ", " + COLUMN_TIMESTAMP + ", " + COLUMN_ID + ")");
+        db.execSQL("CREATE INDEX idx_transactions_type_time ON " + TABLE
+                + " (" + COLUMN_TYPE + ", " + COLUMN_TIMESTAMP + ", " + COLUMN_ID + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Only one version so far
+    }
+
+    /**
+     * Inserts transactions in one database transaction. Transactions already stored
+     * (same id) are skipped, so replaying journal records is harmless.
+     */
+    void insert(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement("INSERT OR IGNORE INTO " + TABLE
+                + " (" + COLUMN_ID + ", " + COLUMN_SYMBOL + ", " + COLUMN_TYPE + ", " + COLUMN_SHARES
+                + ", " + COLUMN_PRICE + ", " + COLUMN_TIMESTAMP + ") VALUES (?, ?, ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (Transaction transaction : transactions) {
+                statement.clearBindings();
+                statement.bindString(1, idOf(transaction));
+                statement.bindString(2, transaction.getSymbol());
+                statement.bindString(3, transaction.getType().name());
+                statement.bindDouble(4, transaction.getShares());
+                statement.bindDouble(5, transaction.getPrice());
+                statement.bindLong(6, transaction.getTimestamp());
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+        Log.d(TAG, "Stored " + transactions.size() + " transaction(s)");
+    }
+
+    void clear() {
+        getWritableDatabase().delete(TABLE, null, null);
+        Log.d(TAG, "Cleared transaction history");
+    }
+
+    /**
+     * Reads one page of transactions matching the query, newest first.
+     *
+     * @param after    Last transaction of the previous page, or null for the first page
+     * @param pageSize Maximum number of transactions in the page
+     */
+    TransactionPage queryPage(TransactionQuery query, Transaction after, int pageSize) {
+        StringBuilder selection = new StringBuilder();
+        List<String> args = new ArrayList<>();
+
+        if (query.getSymbol() != null) {
+            appendCondition(selection, COLUMN_SYMBOL + " = ?");
+            args.add(query.getSymbol());
+        }
+        if (query.getType() != null) {
+            appendCondition(selection, COLUMN_TYPE + " = ?");
+            args.add(query.getType().name());
+        }
+        if (query.getFromTimestamp() > 0) {
+            appendCondition(selection, COLUMN_TIMESTAMP + " >= ?");
+            args.add(String.valueOf(query.getFromTimestamp()));
+        }
+        if (query.getToTimestamp() < Long.MAX_VALUE) {
+            appendCondition(selection, COLUMN_TIMESTAMP + " < ?");
+            args.add(String.valueOf(query.getToTimestamp()));
+        }
+        if (after != null) {
+            // Keyset: strictly older than the cursor in (timestamp, id) order
+            appendCondition(selection, "(" + COLUMN_TIMESTAMP + " < ? OR ("
+                    + COLUMN_TIMESTAMP + " = ? AND " + COLUMN_ID + " < ?))");
+            String timestamp = String.valueOf(after.getTimestamp());
+            args.add(timestamp);
+            args.add(timestamp);
+            args.add(idOf(after));
+        }
+
+        // One extra row tells whether another page follows
+        List<Transaction> transactions = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        try (Cursor cursor = getReadableDatabase().query(TABLE, COLUMNS,
+                selection.length() > 0 ? selection.toString() : null,
+                args.toArray(new String[0]), null, null, ORDER_NEWEST_FIRST,
+                String.valueOf(pageSize + 1))) {
+            while (cursor.moveToNext()) {
+                if (transactions.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                transactions.add(readTransaction(cursor));
+            }
+        }
+        return new TransactionPage(transactions, hasMore);
+    }
+
+    private static void appendCondition(StringBuilder selection, String condition) {
+        if (selection.length() > 0) {
+            selection.append(" AND ");
+        }
+        selection.append(condition);
+    }
+
+    private static Transaction readTransaction(Cursor cursor) {
+        Transaction transaction = new Transaction();
+        transaction.setId(cursor.getString(0));
+        transaction.setSymbol(cursor.getString(1));
+        transaction.setType(Transaction.Type.valueOf(cursor.getString(2)));
+        transaction.setShares(cursor.getDouble(3));
+        transaction.setPrice(cursor.getDouble(4));
+        transaction.setTimestamp(cursor.getLong(5));
+        return transaction;
+    }
+
+    /**
+     * Id of a transaction, derived from its contents for old records that have none
+     */
+    private static String idOf(Transaction transaction) {
+        String id = transaction.getId();
+        if (id != null && !id.isEmpty()) {
+            return id;
+        }
+        return "TXN_" + transaction.getTimestamp() + "_" + transaction.getSymbol() + "_" + transaction.getType();
+    }
+}
@@ -6,7 +6,10 @@ import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 
+import com.example.project.model.SymbolGroup;
+import com.example.project.util.AppExecutors;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
@@ -21,6 +24,9 @@ import java.util.Set;
  * This is separated from StockRepository (which manages live WebSocket subscriptions)
  * so that we can clearly distinguish between curated sections (trending/popular)
  * and the symbols the user explicitly pins.
+ * The saved symbols are read on a background thread; changes made before then are
+ * applied once they have loaded. They are published as a {@link SymbolGroup}, so
+ * membership checks do not scan the list.
  */
 public class WatchlistRepository {
 
@@ -37,16 +43,25 @@ public class WatchlistRepository {
 
     private final SharedPreferences sharedPreferences;
     private final Gson gson;
-    private final MutableLiveData<List<String>> watchlistLiveData;
+    private final MutableLiveData<SymbolGroup> watchlistLiveData;
+    private final LiveData<List<String>> watchlistSymbolsLiveData;
+    private final MutableLiveData<Boolean> loadingLiveData;
+    private final PendingOperations pendingOperations;
     private final Context appContext;
 
     private WatchlistRepository(Context context) {
         this.appContext = context.getApplicationContext();
         this.sharedPreferences = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         this.gson = new Gson();
-        this.watchlistLiveData = new MutableLiveData<>(new ArrayList<>());
-
-        loadSymbols();
+        this.watchlistLiveData = new MutableLiveData<>(SymbolGroup.empty());
+        this.watchlistSymbolsLiveData = Transformations.map(watchlistLiveData, SymbolGroup::getSymbols);
+        this.loadingLiveData = new MutableLiveData<>(true);
+        this.pendingOperations = new PendingOperations();
+
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            List<String> symbols = loadSymbols();
+            AppExecutors.getInstance().mainThread().execute(() -> onSymbolsLoaded(symbols));
+        });
     }
 
     public static synchronized WatchlistRepository getInstance(Context context) {
@@ -57,24 +72,50 @@ public class WatchlistRepository {
     }
 
     public LiveData<List<String>> getWatchlistSymbols() {
+        return watchlistSymbolsLiveData;
+    }
+
+    /**
+     * The watchlist with constant-time membership, for screens that filter by it
+     */
+    public LiveData<SymbolGroup> getWatchlistGroup() {
         return watchlistLiveData;
     }
 
+    /**
+     * Whether the saved symbols are still being loaded
+     */
+    public LiveData<Boolean> isLoading() {
+        return loadingLiveData;
+    }
+
+    /**
+     * Adds a symbol. Before the saved symbols have loaded the change is queued and
+     * reported as made.
+     */
     public boolean addSymbol(String symbol) {
         if (symbol == null || symbol.trim().isEmpty()) {
             return false;
         }
 
         String upper = symbol.trim().toUpperCase();
-        List<String> current = new ArrayList<>(getCurrentSymbols());
+        if (!pendingOperations.isReady()) {
+            pendingOperations.runWhenReady(() -> addLoadedSymbol(upper));
+            return true;
+        }
+        return addLoadedSymbol(upper);
+    }
+
+    private boolean addLoadedSymbol(String upper) {
+        SymbolGroup current = getCurrentGroup();
 
         if (current.contains(upper)) {
             return false;
         }
 
-        current.add(upper);
-        saveSymbols(current);
-        watchlistLiveData.setValue(current);
+        SymbolGroup updated = current.plus(upper);
+        saveSymbols(updated.getSymbols());
+        watchlistLiveData.setValue(updated);
         Log.d(TAG, "Added " + upper + " to user watchlist");
         return true;
     }
@@ -85,12 +126,21 @@ public class WatchlistRepository {
         }
 
         String upper = symbol.trim().toUpperCase();
-        List<String> current = new ArrayList<>(getCurrentSymbols());
+        if (!pendingOperations.isReady()) {
+            pendingOperations.runWhenReady(() -> removeLoadedSymbol(upper));
+            return true;
+        }
+        return removeLoadedSymbol(upper);
+    }
 
-        boolean removed = current.remove(upper);
+    private boolean removeLoadedSymbol(String upper) {
+        SymbolGroup current = getCurrentGroup();
+
+        boolean removed = current.contains(upper);
         if (removed) {
-            saveSymbols(current);
-            watchlistLiveData.setValue(current);
+            SymbolGroup updated = current.minus(upper);
+            saveSymbols(updated.getSymbols());
+            watchlistLiveData.setValue(updated);
             Log.d(TAG, "Removed " + upper + " from user watchlist");
         }
         return removed;
@@ -98,13 +148,12 @@ public class WatchlistRepository {
 
     public boolean isInWatchlist(String symbol) {
         if (symbol == null) return false;
-        List<String> current = getCurrentSymbols();
-        return current.contains(symbol.trim().toUpperCase());
+        return getCurrentGroup().contains(symbol.trim().toUpperCase());
     }
 
-    private List<String> getCurrentSymbols() {
-        List<String> symbols = watchlistLiveData.getValue();
-        return symbols != null ? symbols : new ArrayList<>();
+    private SymbolGroup getCurrentGroup() {
+        SymbolGroup group = watchlistLiveData.getValue();
+        return group != null ? group : SymbolGroup.empty();
     }
 
     private void saveSymbols(List<String> symbols) {
@@ -112,7 +161,16 @@ public class WatchlistRepository {
         sharedPreferences.edit().putString(KEY_SYMBOLS, json).apply();
     }
 
-    private void loadSymbols() {
+    private void onSymbolsLoaded(List<String> symbols) {
+        watchlistLiveData.setValue(SymbolGroup.of(symbols));
+        loadingLiveData.setValue(false);
+        pendingOperations.markReady();
+    }
+
+    /**
+     * Reads the saved symbols; runs on the disk thread.
+     */
+    private List<String> loadSymbols() {
         String json = sharedPreferences.getString(KEY_SYMBOLS, null);
 
         if (json != null) {
@@ -120,8 +178,7 @@ public class WatchlistRepository {
                 Type type = new TypeToken<List<String>>() {}.getType();
                 List<String> symbols = gson.fromJson(json, type);
                 if (symbols != null) {
-                    watchlistLiveData.setValue(new ArrayList<>(new HashSet<>(symbols)));
-                    return;
+                    return SymbolGroup.of(symbols).getSymbols();
                 }
             } catch (Exception e) {
                 Log.e(TAG, "Failed to parse watchlist JSON", e);
@@ -129,23 +186,21 @@ public class WatchlistRepository {
         }
 
         // No existing data in the new store, migrate legacy data if available.
-        migrateLegacyWatchlist();
+        return migrateLegacyWatchlist();
     }
 
-    private void migrateLegacyWatchlist() {
+    private List<String> migrateLegacyWatchlist() {
         SharedPreferences legacyPrefs = appContext.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
         String legacyJson = legacyPrefs.getString(LEGACY_KEY_SYMBOLS, null);
         if (legacyJson == null) {
-            watchlistLiveData.setValue(new ArrayList<>());
-            return;
+            return new ArrayList<>();
         }
 
         try {
             Type type = new TypeToken<List<String>>() {}.getType();
             List<String> legacySymbols = gson.fromJson(legacyJson, type);
             if (legacySymbols == null) {
-                watchlistLiveData.setValue(new ArrayList<>());
-                return;
+                return new ArrayList<>();
             }
 
             // Deduplicate (legacy list also stored trending/popular symbols)
@@ -158,11 +213,11 @@ public class WatchlistRepository {
 
             List<String> cleanedSymbols = new ArrayList<>(uniqueSymbols);
             saveSymbols(cleanedSymbols);
-            watchlistLiveData.setValue(cleanedSymbols);
             Log.d(TAG, "Migrated " + cleanedSymbols.size() + " symbols from legacy watchlist");
+            return cleanedSymbols;
         } catch (Exception e) {
             Log.e(TAG, "Failed to migrate legacy watchlist", e);
-            watchlistLiveData.setValue(new ArrayList<>());
+            return new ArrayList<>();
         }
     }
 }
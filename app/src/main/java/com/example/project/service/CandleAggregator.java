@@ -0,0 +1,283 @@
+package com.example.project.service;
+
+import android.util.Log;
+
+import com.example.project.model.CandleSeries;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds intraday OHLCV bars from the WebSocket trade stream.
+ * Each tracked symbol keeps 1, 5, 15 and 60-minute bars that are updated in O(1) per
+ * trade, so an intraday chart stays current without polling /stock/candle. Locally built
+ * bars are merged onto fetched candles with {@link #merge(CandleSeries, String, String)}.
+ */
+public class CandleAggregator {
+    private static final String TAG = "CandleAggregator";
+    public static final String[] SUPPORTED_RESOLUTIONS = {"1", "5", "15", "60"};
+    // One day of 1-minute bars; older bars are dropped
+    private static final int MAX_BARS = 24 * 60;
+
+    private static CandleAggregator instance;
+
+    private final Map<String, SymbolBars> trackedSymbols;
+
+    private CandleAggregator() {
+        this.trackedSymbols = new ConcurrentHashMap<>();
+    }
+
+    public static synchronized CandleAggregator getInstance() {
+        if (instance == null) {
+            instance = new CandleAggregator();
+        }
+        return instance;
+    }
+
+    /**
+     * Whether bars can be built locally for a Finnhub resolution.
+     */
+    public static boolean isSupported(String resolution) {
+        return barIndex(resolution) >= 0;
+    }
+
+    /**
+     * Starts building bars for a symbol from the next trade on.
+     */
+    public void track(String symbol) {
+        if (trackedSymbols.putIfAbsent(symbol, new SymbolBars()) == null) {
+            Log.d(TAG, "Aggregating trades for " + symbol);
+        }
+    }
+
+    /**
+     * Stops building bars for a symbol and drops what was built.
+     */
+    public void untrack(String symbol) {
+        if (trackedSymbols.remove(symbol) != null) {
+            Log.d(TAG, "Stopped aggregating trades for " + symbol);
+        }
+    }
+
+    public boolean isTracked(String symbol) {
+        return trackedSymbols.containsKey(symbol);
+    }
+
+    /**
+     * Folds a trade into every resolution. Called from the WebSocket reader thread;
+     * trades for untracked symbols are ignored.
+     *
+     * @param timestamp Trade time in milliseconds, as sent by Finnhub
+     */
+    public void onTrade(String symbol, double price, double volume, long timestamp) {
+        SymbolBars bars = trackedSymbols.get(symbol);
+        if (bars != null) {
+            bars.add(price, volume, timestamp / 1000);
+        }
+    }
+
+    /**
+     * Snapshot of the bars built so far for a symbol and resolution.
+     */
+    public CandleSeries getBars(String symbol, String resolution) {
+        SymbolBars bars = trackedSymbols.get(symbol);
+        int index = barIndex(resolution);
+        if (bars == null || index < 0) {
+            return CandleSeries.empty("no_data");
+        }
+        return bars.snapshot(index);
+    }
+
+    /**
+     * The bar in progress for a symbol and resolution as a one-bar series, or an empty
+     * series if no trade has been seen yet. Cheaper than {@link #getBars} for live updates.
+     */
+    public CandleSeries getLatestBar(String symbol, String resolution) {
+        SymbolBars bars = trackedSymbols.get(symbol);
+        int index = barIndex(resolution);
+        if (bars == null || index < 0) {
+            return CandleSeries.empty("no_data");
+        }
+        return bars.latest(index);
+    }
+
+    /**
+     * Appends locally built bars to fetched candles. Fetched bars win for closed
+     * periods; where both have the bar of the same period (the one in progress when the
+     * fetch ran), the two are combined so neither the fetched open nor the live close is lost.
+     *
+     * @return The merged series, or fetched itself when there is nothing to add
+     */
+    public CandleSeries merge(CandleSeries fetched, String symbol, String resolution) {
+        CandleSeries live = getBars(symbol, resolution);
+        if (live.size() == 0) {
+            return fetched;
+        }
+        if (fetched == null || fetched.size() == 0) {
+            return live;
+        }
+
+        long lastFetched = fetched.getLastTimestamp();
+        int first = live.indexAtOrAfter(lastFetched);
+        if (first == live.size()) {
+            return fetched;
+        }
+
+        CandleSeries tail = live.slice(first, live.size());
+        if (tail.getFirstTimestamp() == lastFetched) {
+            int last = fetched.size() - 1;
+            tail = replaceFirst(tail,
+                    fetched.getOpen(last),
+                    Math.max(fetched.getHigh(last), tail.getHigh(0)),
+                    Math.min(fetched.getLow(last), tail.getLow(0)),
+                    Math.max(fetched.getVolume(last), tail.getVolume(0)));
+        }
+        return CandleSeries.concat(fetched, tail);
+    }
+
+    private static CandleSeries replaceFirst(CandleSeries series, double open, double high,
+                                             double low, double volume) {
+        int size = series.size();
+        long[] t = new long[size];
+        double[] o = new double[size];
+        double[] h = new double[size];
+        double[] l = new double[size];
+        double[] c = new double[size];
+        double[] v = new double[size];
+        for (int i = 0; i < size; i++) {
+            t[i] = series.getTimestamp(i);
+            o[i] = series.getOpen(i);
+            h[i] = series.getHigh(i);
+            l[i] = series.getLow(i);
+            c[i] = series.getClose(i);
+            v[i] = series.getVolume(i);
+        }
+        o[0] = open;
+        h[0] = high;
+        l[0] = low;
+        v[0] = volume;
+        return new CandleSeries(t, o, h, l, c, v, "ok");
+    }
+
+    private static int barIndex(String resolution) {
+        for (int i = 0; i < SUPPORTED_RESOLUTIONS.length; i++) {
+            if (SUPPORTED_RESOLUTIONS[i].equals(resolution)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Bars of every supported resolution for one symbol
+     */
+    private static class SymbolBars {
+        private final BarBuffer[] buffers = new BarBuffer[SUPPORTED_RESOLUTIONS.length];
+
+        SymbolBars() {
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = new BarBuffer(Integer.parseInt(SUPPORTED_RESOLUTIONS[i]) * 60L);
+            }
+        }
+
+        synchronized void add(double price, double volume, long timestampSeconds) {
+            for (BarBuffer buffer : buffers) {
+                buffer.add(price, volume, timestampSeconds);
+            }
+        }
+
+        synchronized CandleSeries snapshot(int index) {
+            return buffers[index].snapshot();
+        }
+
+        synchronized CandleSeries latest(int index) {
+            return buffers[index].latest();
+        }
+    }
+
+    /**
+     * Growable columnar bars of one resolution; the last bar is the one in progress
+     */
+    private static class BarBuffer {
+        private final long periodSeconds;
+        private long[] t = new long[16];
+        private double[] o = new double[16];
+        private double[] h = new double[16];
+        private double[] l = new double[16];
+        private double[] c = new double[16];
+        private double[] v = new double[16];
+        private int size = 0;
+
+        BarBuffer(long periodSeconds) {
+            this.periodSeconds = periodSeconds;
+        }
+
+        void add(double price, double volume, long timestampSeconds) {
+            long barStart = timestampSeconds - Math.floorMod(timestampSeconds, periodSeconds);
+            int last = size - 1;
+
+            if (size > 0 && t[last] == barStart) {
+                if (price > h[last]) h[last] = price;
+                if (price < l[last]) l[last] = price;
+                c[last] = price;
+                v[last] += volume;
+                return;
+            }
+            if (size > 0 && barStart < t[last]) {
+                // Late trade for a bar that has closed; the fetched candles cover it
+                return;
+            }
+
+            if (size == MAX_BARS) {
+                dropOldest();
+            } else if (size == t.length) {
+                grow();
+            }
+            t[size] = barStart;
+            o[size] = price;
+            h[size] = price;
+            l[size] = price;
+            c[size] = price;
+            v[size] = volume;
+            size++;
+        }
+
+        CandleSeries snapshot() {
+            return new CandleSeries(Arrays.copyOf(t, size), Arrays.copyOf(o, size),
+                    Arrays.copyOf(h, size), Arrays.copyOf(l, size),
+                    Arrays.copyOf(c, size), Arrays.copyOf(v, size), "ok");
+        }
+
+        CandleSeries latest() {
+            if (size == 0) {
+                return CandleSeries.empty("no_data");
+            }
+            int last = size - 1;
+            return new CandleSeries(new long[]{t[last]}, new double[]{o[last]},
+                    new double[]{h[last]}, new double[]{l[last]},
+                    new double[]{c[last]}, new double[]{v[last]}, "ok");
+        }
+
+        private void grow() {
+            int capacity = Math.min(t.length * 2, MAX_BARS);
+            t = Arrays.copyOf(t, capacity);
+            o = Arrays.copyOf(o, capacity);
+            h = Arrays.copyOf(h, capacity);
+            l = Arrays.copyOf(l, capacity);
+            c = Arrays.copyOf(c, capacity);
+            v = Arrays.copyOf(v, capacity);
+        }
+
+        private void dropOldest() {
+            int keep = size - 1;
+            System.arraycopy(t, 1, t, 0, keep);
+            System.arraycopy(o, 1, o, 0, keep);
+            System.arraycopy(h, 1, h, 0, keep);
+            System.arraycopy(l, 1, l, 0, keep);
+            System.arraycopy(c, 1, c, 0, keep);
+            System.arraycopy(v, 1, v, 0, keep);
+            size = keep;
+        }
+    }
+}
@@ -3,26 +3,21 @@ package com.example.project.service;
 import android.util.Log;
 
 import com.example.project.BuildConfig;
-import com.example.project.model.CandleData;
+import com.example.project.model.CandleSeries;
 import com.example.project.model.InsiderTransactionResponse;
 import com.example.project.model.MarketNews;
 import com.example.project.model.MarketStatus;
 import com.example.project.model.StockQuote;
 import com.example.project.model.TimeFrame;
+import com.example.project.service.FinnhubRequestScheduler.Priority;
 import com.example.project.util.ApiKeyManager;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
-import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
-import okhttp3.Call;
-import okhttp3.Callback;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 
 /**
  * Service class for fetching historical stock data from Finnhub API.
@@ -36,7 +31,10 @@ public class FinnhubApiService {
     private static final String MARKET_STATUS_ENDPOINT = "https://finnhub.io/api/v1/stock/market-status";
     private static final String NEWS_ENDPOINT = "https://finnhub.io/api/v1/news";
     private static final String INSIDER_TRANSACTIONS_ENDPOINT = "https://finnhub.io/api/v1/stock/insider-transactions";
-    private static final int TIMEOUT_SECONDS = 30;
+
+    // Shared by all instances so identical requests from different screens coalesce
+    private static final RequestCoalescer COALESCER = new RequestCoalescer();
+    private static final QuoteCache QUOTE_CACHE = QuoteCache.getInstance();
 
     private final OkHttpClient httpClient;
     private final Gson gson;
@@ -46,7 +44,7 @@ public class FinnhubApiService {
      * Callback interface for candle data fetching.
      */
     public interface CandleDataCallback {
-        void onSuccess(CandleData candleData);
+        void onSuccess(CandleSeries candles);
         void onError(String error);
     }
 
@@ -86,11 +84,8 @@ public class FinnhubApiService {
      * Constructor initializes HTTP client and JSON parser.
      */
     public FinnhubApiService() {
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                .readTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                .writeTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                .build();
+        // Shared pool and dispatcher; instances are cheap to create
+        this.httpClient = HttpClientProvider.getInstance().getRestClient();
         this.gson = new Gson();
         this.apiKeyManager = ApiKeyManager.getInstance();
 
@@ -126,102 +121,129 @@ public class FinnhubApiService {
             long from,
             long to,
             CandleDataCallback callback) {
+        fetchCandleData(symbol, resolution, from, to, Priority.CHART, callback);
+    }
 
-        String url = buildCandleUrl(symbol, resolution, from, to);
-        Log.d(TAG, "Fetching candle data from: " + url);
-
-        Request request = new Request.Builder()
-                .url(url)
-                .get()
-                .build();
+    /**
+     * Fetches candle data with custom time range at the given priority.
+     *
+     * @param symbol     Stock symbol (e.g., "AAPL")
+     * @param resolution Resolution (1, 5, 15, 30, 60, D, W, M)
+     * @param from       Start time (Unix timestamp)
+     * @param to         End time (Unix timestamp)
+     * @param priority   Scheduling priority
+     * @param callback   Callback for handling response
+     */
+    public void fetchCandleData(
+            String symbol,
+            String resolution,
+            long from,
+            long to,
+            Priority priority,
+            CandleDataCallback callback) {
 
-        httpClient.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                Log.e(TAG, "Failed to fetch candle data", e);
-                callback.onError("Network error: " + e.getMessage());
-            }
+        Log.d(TAG, "Fetching candle data for " + symbol + " (" + resolution + ")");
 
-            @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response: " + response.code());
-                    callback.onError("HTTP error: " + response.code());
-                    return;
-                }
-
-                try {
-                    String responseBody = response.body().string();
+        String key = "candle:" + symbol + ":" + resolution + ":" + from + ":" + to;
+        COALESCER.execute(key, priority, this, httpClient,
+                apiKey -> buildCandleUrl(symbol, resolution, from, to, apiKey),
+                responseBody -> {
                     Log.d(TAG, "Received candle data: " + responseBody.substring(0, Math.min(200, responseBody.length())));
 
-                    CandleData candleData = gson.fromJson(responseBody, CandleData.class);
-
-                    if (candleData != null && candleData.isValid()) {
-                        callback.onSuccess(candleData);
-                    } else {
-                        String errorMsg = candleData != null
-                                ? "No data available (status: " + candleData.getStatus() + ")"
-                                : "Invalid response";
-                        Log.w(TAG, errorMsg);
-                        callback.onError(errorMsg);
+                    CandleSeries candles = gson.fromJson(responseBody, CandleSeries.class);
+                    if (candles != null && CandleSeries.STATUS_NO_DATA.equalsIgnoreCase(candles.getStatus())) {
+                        // A valid answer: there are no candles in the range
+                        return CandleSeries.empty(CandleSeries.STATUS_NO_DATA);
                     }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing candle data", e);
-                    callback.onError("Parsing error: " + e.getMessage());
-                }
-            }
-        });
+                    if (candles == null || !candles.isValid()) {
+                        throw new RequestCoalescer.InvalidResponseException(candles != null
+                                ? "No data available (status: " + candles.getStatus() + ")"
+                                : "Invalid response");
+                    }
+                    return candles;
+                },
+                callback::onSuccess, callback::onError);
     }
 
     /**
-     * Fetches current quote data for a stock symbol.
+     * Fetches current quote data for a stock symbol as a background refresh.
      *
      * @param symbol   Stock symbol (e.g., "AAPL")
      * @param callback Callback for handling response
      */
     public void fetchQuote(String symbol, QuoteCallback callback) {
-        String url = buildQuoteUrl(symbol);
-        Log.d(TAG, "Fetching quote from: " + url);
+        fetchQuote(symbol, Priority.BACKGROUND, callback);
+    }
 
-        Request request = new Request.Builder()
-                .url(url)
-                .get()
-                .build();
+    /**
+     * Fetches current quote data for a stock symbol.
+     * A fresh cached quote is returned without a request. A stale one is returned
+     * immediately and then revalidated, so onSuccess may be called twice; errors during
+     * revalidation are not reported since a quote was already delivered.
+     *
+     * @param symbol   Stock symbol (e.g., "AAPL")
+     * @param priority Scheduling priority; use FOREGROUND_QUOTE for the visible screen
+     * @param callback Callback for handling response
+     */
+    public void fetchQuote(String symbol, Priority priority, QuoteCallback callback) {
+        QuoteCache.Entry cached = QUOTE_CACHE.get(symbol);
+        if (cached != null) {
+            callback.onSuccess(cached.getQuote());
+            if (cached.isFresh()) {
+                return;
+            }
+            Log.d(TAG, "Serving stale quote for " + symbol + ", revalidating");
+        } else {
+            Log.d(TAG, "Fetching quote for " + symbol);
+        }
 
-        httpClient.newCall(request).enqueue(new Callback() {
+        requestQuote(symbol, priority, new QuoteCallback() {
             @Override
-            public void onFailure(Call call, IOException e) {
-                Log.e(TAG, "Failed to fetch quote", e);
-                callback.onError("Network error: " + e.getMessage());
+            public void onSuccess(StockQuote quote) {
+                callback.onSuccess(quote);
             }
 
             @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response: " + response.code());
-                    callback.onError("HTTP error: " + response.code());
-                    return;
+            public void onError(String error) {
+                if (cached == null) {
+                    callback.onError(error);
+                } else {
+                    Log.w(TAG, "Revalidation failed for " + symbol + ": " + error);
                 }
+            }
+        });
+    }
 
-                try {
-                    String responseBody = response.body().string();
+    /**
+     * Fetches a quote with exactly one callback: a fresh cached quote, or else the
+     * result of a request. Never serves a stale quote, for one-off fetches that would
+     * otherwise settle for the stale one and miss the revalidated quote.
+     */
+    public void fetchQuoteOnce(String symbol, Priority priority, QuoteCallback callback) {
+        QuoteCache.Entry cached = QUOTE_CACHE.get(symbol);
+        if (cached != null && cached.isFresh()) {
+            callback.onSuccess(cached.getQuote());
+            return;
+        }
+        Log.d(TAG, "Fetching quote for " + symbol);
+        requestQuote(symbol, priority, callback);
+    }
+
+    private void requestQuote(String symbol, Priority priority, QuoteCallback callback) {
+        COALESCER.execute("quote:" + symbol, priority, this, httpClient,
+                apiKey -> buildQuoteUrl(symbol, apiKey),
+                responseBody -> {
                     Log.d(TAG, "Received quote: " + responseBody);
 
                     StockQuote quote = gson.fromJson(responseBody, StockQuote.class);
-
-                    if (quote != null && quote.isValid()) {
-                        callback.onSuccess(quote);
-                    } else {
-                        String errorMsg = "Invalid quote data";
-                        Log.w(TAG, errorMsg);
-                        callback.onError(errorMsg);
+                    if (quote == null || !quote.isValid()) {
+                        throw new RequestCoalescer.InvalidResponseException("Invalid quote data");
                     }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing quote", e);
-                    callback.onError("Parsing error: " + e.getMessage());
-                }
-            }
-        });
+                    QUOTE_CACHE.put(symbol, quote);
+                    return quote;
+                },
+                callback::onSuccess,
+                callback::onError);
     }
 
     /**
@@ -231,48 +253,20 @@ public class FinnhubApiService {
      * @param callback Callback for handling response
      */
     public void fetchMarketStatus(String exchange, MarketStatusCallback callback) {
-        String url = buildMarketStatusUrl(exchange);
-        Log.d(TAG, "Fetching market status from: " + url);
-
-        Request request = new Request.Builder()
-                .url(url)
-                .get()
-                .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                Log.e(TAG, "Failed to fetch market status", e);
-                callback.onError("Network error: " + e.getMessage());
-            }
+        Log.d(TAG, "Fetching market status for " + exchange);
 
-            @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response: " + response.code());
-                    callback.onError("HTTP error: " + response.code());
-                    return;
-                }
-
-                try {
-                    String responseBody = response.body().string();
+        COALESCER.execute("market-status:" + exchange, Priority.SUPPLEMENTARY, this, httpClient,
+                apiKey -> buildMarketStatusUrl(exchange, apiKey),
+                responseBody -> {
                     Log.d(TAG, "Received market status: " + responseBody);
 
                     MarketStatus status = gson.fromJson(responseBody, MarketStatus.class);
-
-                    if (status != null) {
-                        callback.onSuccess(status);
-                    } else {
-                        String errorMsg = "Invalid market status data";
-                        Log.w(TAG, errorMsg);
-                        callback.onError(errorMsg);
+                    if (status == null) {
+                        throw new RequestCoalescer.InvalidResponseException("Invalid market status data");
                     }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing market status", e);
-                    callback.onError("Parsing error: " + e.getMessage());
-                }
-            }
-        });
+                    return status;
+                },
+                callback::onSuccess, callback::onError);
     }
 
     /**
@@ -282,81 +276,54 @@ public class FinnhubApiService {
      * @param callback Callback for handling response
      */
     public void fetchMarketNews(String category, MarketNewsCallback callback) {
-        String url = NEWS_ENDPOINT +
-                "?category=" + category +
-                "&token=" + apiKeyManager.getNextApiKey();
-
-        Log.d(TAG, "Fetching news from: " + url);
-
-        Request request = new Request.Builder()
-                .url(url)
-                .get()
-                .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                Log.e(TAG, "Failed to fetch news", e);
-                callback.onError("Network error: " + e.getMessage());
-            }
-
-            @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response: " + response.code());
-                    callback.onError("HTTP error: " + response.code());
-                    return;
-                }
+        Log.d(TAG, "Fetching news for category " + category);
 
-                try {
-                    String responseBody = response.body().string();
+        COALESCER.execute("news:" + category, Priority.SUPPLEMENTARY, this, httpClient,
+                apiKey -> NEWS_ENDPOINT +
+                        "?category=" + category +
+                        "&token=" + apiKey,
+                responseBody -> {
                     Log.d(TAG, "Received news data"); // Don't log full body if it's huge
 
                     // Parse JSON Array to List using TypeToken
                     Type listType = new TypeToken<List<MarketNews>>(){}.getType();
                     List<MarketNews> newsList = gson.fromJson(responseBody, listType);
-
-                    if (newsList != null) {
-                        callback.onSuccess(newsList);
-                    } else {
-                        callback.onError("No news data found");
+                    if (newsList == null) {
+                        throw new RequestCoalescer.InvalidResponseException("No news data found");
                     }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing news", e);
-                    callback.onError("Parsing error: " + e.getMessage());
-                }
-            }
-        });
+                    return newsList;
+                },
+                callback::onSuccess, callback::onError);
     }
 
     /**
      * Builds the complete URL for candle data API request.
      */
-    private String buildCandleUrl(String symbol, String resolution, long from, long to) {
+    private String buildCandleUrl(String symbol, String resolution, long from, long to, String apiKey) {
         return CANDLE_ENDPOINT +
                 "?symbol=" + symbol +
                 "&resolution=" + resolution +
                 "&from=" + from +
                 "&to=" + to +
-                "&token=" + apiKeyManager.getNextApiKey();
+                "&token=" + apiKey;
     }
 
     /**
      * Builds the complete URL for quote API request.
      */
-    private String buildQuoteUrl(String symbol) {
+    private String buildQuoteUrl(String symbol, String apiKey) {
         return QUOTE_ENDPOINT +
                 "?symbol=" + symbol +
-                "&token=" + apiKeyManager.getNextApiKey();
+                "&token=" + apiKey;
     }
 
     /**
      * Builds the complete URL for market status API request.
      */
-    private String buildMarketStatusUrl(String exchange) {
+    private String buildMarketStatusUrl(String exchange, String apiKey) {
         return MARKET_STATUS_ENDPOINT +
                 "?exchange=" + exchange +
-                "&token=" + apiKeyManager.getNextApiKey();
+                "&token=" + apiKey;
     }
 
     /**
@@ -367,48 +334,21 @@ public class FinnhubApiService {
      * @param callback Callback for handling response
      */
     public void fetchInsiderTransactions(String symbol, int limit, InsiderTransactionsCallback callback) {
-        String url = buildInsiderTransactionsUrl(symbol, limit);
-        Log.d(TAG, "Fetching insider transactions from: " + url);
-
-        Request request = new Request.Builder()
-                .url(url)
-                .get()
-                .build();
+        Log.d(TAG, "Fetching insider transactions for " + symbol);
 
-        httpClient.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                Log.e(TAG, "Failed to fetch insider transactions", e);
-                callback.onError("Network error: " + e.getMessage());
-            }
-
-            @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response: " + response.code());
-                    callback.onError("HTTP error: " + response.code());
-                    return;
-                }
-
-                try {
-                    String responseBody = response.body().string();
+        COALESCER.execute("insider:" + symbol + ":" + Math.min(limit, 100), Priority.SUPPLEMENTARY,
+                this, httpClient,
+                apiKey -> buildInsiderTransactionsUrl(symbol, limit, apiKey),
+                responseBody -> {
                     Log.d(TAG, "Received insider transactions: " + responseBody);
 
                     InsiderTransactionResponse transactionResponse = gson.fromJson(responseBody, InsiderTransactionResponse.class);
-
-                    if (transactionResponse != null && transactionResponse.getData() != null) {
-                        callback.onSuccess(transactionResponse);
-                    } else {
-                        String errorMsg = "Invalid transaction data";
-                        Log.w(TAG, errorMsg);
-                        callback.onError(errorMsg);
+                    if (transactionResponse == null || transactionResponse.getData() == null) {
+                        throw new RequestCoalescer.InvalidResponseException("Invalid transaction data");
                     }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing insider transactions", e);
-                    callback.onError("Parsing error: " + e.getMessage());
-                }
-            }
-        });
+                    return transactionResponse;
+                },
+                callback::onSuccess, callback::onError);
     }
 
     /**
@@ -416,19 +356,21 @@ public class FinnhubApiService {
      *
      * @param symbol Stock symbol
      * @param limit  Number of transactions to retrieve
+     * @param apiKey API key assigned by the request budget
      * @return Complete URL string
      */
-    private String buildInsiderTransactionsUrl(String symbol, int limit) {
+    private String buildInsiderTransactionsUrl(String symbol, int limit, String apiKey) {
         return INSIDER_TRANSACTIONS_ENDPOINT +
                 "?symbol=" + symbol +
                 "&limit=" + Math.min(limit, 100) + // Ensure max 100
-                "&token=" + apiKeyManager.getNextApiKey();
+                "&token=" + apiKey;
     }
 
     /**
-     * Cancels all pending requests.
+     * Cancels all pending requests made through this instance. Requests shared with
+     * other callers keep running for them.
      */
     public void cancelAllRequests() {
-        httpClient.dispatcher().cancelAll();
+        COALESCER.cancel(this);
     }
-}
\ No newline at end of file
+}
@@ -2,120 +2,173 @@ package com.example.project.service;
 
 import android.util.Log;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Rate limiter for Finnhub API calls
  * Enforces the 30 API calls per second limit as per Finnhub documentation
+ *
+ * Lock-free token bucket in its GCRA form: the only state is the theoretical arrival
+ * time of the next request, advanced with CAS. Callers are told when their permit
+ * becomes usable instead of being made to sleep behind a lock.
  */
 public class FinnhubRateLimiter {
     private static final String TAG = "FinnhubRateLimiter";
     private static final int MAX_CALLS_PER_SECOND = 30;
     private static final long TIME_WINDOW_MS = 1000; // 1 second
 
-    private final Queue<Long> requestTimestamps;
-    private final Object lock = new Object();
+    private final int permits;
+    private final long windowNanos;
+    private final long emissionIntervalNanos;
+
+    // Theoretical arrival time (System.nanoTime based) of the next conforming request
+    private final AtomicLong theoreticalArrivalTime;
 
     public FinnhubRateLimiter() {
-        this.requestTimestamps = new LinkedList<>();
+        this(MAX_CALLS_PER_SECOND, TIME_WINDOW_MS);
     }
 
     /**
-     * Attempts to acquire permission to make an API call
-     * Blocks if rate limit would be exceeded until it's safe to proceed
-     *
-     * @return true if permission granted, false if interrupted
+     * @param permits  requests allowed per window, also the maximum burst
+     * @param windowMs window length in milliseconds
      */
-    public boolean acquire() {
-        synchronized (lock) {
-            try {
-                long now = System.currentTimeMillis();
-
-                // Remove timestamps older than 1 second
-                while (!requestTimestamps.isEmpty() &&
-                       now - requestTimestamps.peek() >= TIME_WINDOW_MS) {
-                    requestTimestamps.poll();
-                }
-
-                // If we've hit the limit, wait until the oldest request expires
-                if (requestTimestamps.size() >= MAX_CALLS_PER_SECOND) {
-                    long oldestTimestamp = requestTimestamps.peek();
-                    long waitTime = TIME_WINDOW_MS - (now - oldestTimestamp);
-
-                    if (waitTime > 0) {
-                        Log.d(TAG, String.format("Rate limit reached. Waiting %dms before next request", waitTime));
-                        Thread.sleep(waitTime);
-
-                        // Update 'now' after sleeping
-                        now = System.currentTimeMillis();
-
-                        // Clean up expired timestamps again
-                        while (!requestTimestamps.isEmpty() &&
-                               now - requestTimestamps.peek() >= TIME_WINDOW_MS) {
-                            requestTimestamps.poll();
-                        }
-                    }
-                }
-
-                // Record this request
-                requestTimestamps.offer(now);
-                Log.d(TAG, String.format("Request approved. Current: %d/%d calls in last second",
-                    requestTimestamps.size(), MAX_CALLS_PER_SECOND));
+    public FinnhubRateLimiter(int permits, long windowMs) {
+        if (permits <= 0 || windowMs <= 0) {
+            throw new IllegalArgumentException("permits and windowMs must be positive");
+        }
+        this.permits = permits;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.emissionIntervalNanos = windowNanos / permits;
+        this.theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+    }
 
+    /**
+     * Takes a permit if one is available right now
+     *
+     * @return true if permission granted, false if the caller would have to wait
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrivalTime.get();
+            long newTat = Math.max(tat, now) + emissionIntervalNanos;
+            if (newTat - now > windowNanos) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
                 return true;
+            }
+        }
+    }
 
-            } catch (InterruptedException e) {
-                Log.e(TAG, "Rate limiter interrupted", e);
-                Thread.currentThread().interrupt();
-                return false;
+    /**
+     * Reserves a permit unconditionally
+     *
+     * @return milliseconds until the reserved permit may be used, 0 if immediately
+     */
+    public long reserve() {
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrivalTime.get();
+            long newTat = Math.max(tat, now) + emissionIntervalNanos;
+            if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
+                return toDelayMs(newTat - windowNanos - now);
             }
         }
     }
 
+    /**
+     * Reserves a permit and runs the continuation on the executor once it is usable.
+     * Never blocks the calling thread.
+     */
+    public void acquire(ScheduledExecutorService executor, Runnable continuation) {
+        long delayMs = reserve();
+        if (delayMs > 0) {
+            Log.d(TAG, String.format("Rate limit reached. Scheduling request in %dms", delayMs));
+            executor.schedule(continuation, delayMs, TimeUnit.MILLISECONDS);
+        } else {
+            executor.execute(continuation);
+        }
+    }
+
+    /**
+     * Reserves a permit and waits for it on the calling thread. No lock is held while
+     * waiting, so other callers are never queued behind a sleeping thread.
+     *
+     * @return true if permission granted, false if interrupted
+     */
+    public boolean acquire() {
+        long delayMs = reserve();
+        if (delayMs <= 0) {
+            return true;
+        }
+
+        try {
+            Log.d(TAG, String.format("Rate limit reached. Waiting %dms before next request", delayMs));
+            Thread.sleep(delayMs);
+            return true;
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Rate limiter interrupted", e);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Milliseconds until the next permit would be usable, without reserving it
+     */
+    public long getEarliestPermitDelayMs() {
+        long now = System.nanoTime();
+        long newTat = Math.max(theoreticalArrivalTime.get(), now) + emissionIntervalNanos;
+        return toDelayMs(newTat - windowNanos - now);
+    }
+
     /**
      * Checks if a request can be made immediately without blocking
      *
      * @return true if under rate limit, false otherwise
      */
     public boolean canMakeRequest() {
-        synchronized (lock) {
-            long now = System.currentTimeMillis();
-
-            // Remove timestamps older than 1 second
-            while (!requestTimestamps.isEmpty() &&
-                   now - requestTimestamps.peek() >= TIME_WINDOW_MS) {
-                requestTimestamps.poll();
-            }
-
-            return requestTimestamps.size() < MAX_CALLS_PER_SECOND;
-        }
+        long now = System.nanoTime();
+        return Math.max(theoreticalArrivalTime.get(), now) + emissionIntervalNanos - now <= windowNanos;
     }
 
     /**
      * Gets the current number of requests in the time window
      */
     public int getCurrentRequestCount() {
-        synchronized (lock) {
-            long now = System.currentTimeMillis();
+        long now = System.nanoTime();
+        long backlog = Math.max(theoreticalArrivalTime.get(), now) - now;
+        // Round up: a partially drained slot still counts as used
+        return (int) ((backlog + emissionIntervalNanos - 1) / emissionIntervalNanos);
+    }
 
-            // Remove timestamps older than 1 second
-            while (!requestTimestamps.isEmpty() &&
-                   now - requestTimestamps.peek() >= TIME_WINDOW_MS) {
-                requestTimestamps.poll();
-            }
+    /**
+     * Gets the number of requests that could be made immediately
+     */
+    public int getAvailablePermits() {
+        return Math.max(0, permits - getCurrentRequestCount());
+    }
 
-            return requestTimestamps.size();
-        }
+    public int getPermits() {
+        return permits;
     }
 
     /**
      * Resets the rate limiter (useful for testing or error recovery)
      */
     public void reset() {
-        synchronized (lock) {
-            requestTimestamps.clear();
-            Log.d(TAG, "Rate limiter reset");
+        theoreticalArrivalTime.set(System.nanoTime());
+        Log.d(TAG, "Rate limiter reset");
+    }
+
+    private static long toDelayMs(long delayNanos) {
+        if (delayNanos <= 0) {
+            return 0;
         }
+        // Round up so a scheduled continuation never fires before its permit
+        return (delayNanos + 999_999) / 1_000_000;
     }
 }
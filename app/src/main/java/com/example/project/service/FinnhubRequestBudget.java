@@ -0,0 +1,198 @@
+package com.example.project.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.project.BuildConfig;
+import com.example.project.util.ApiKeyManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Central quota manager for all outgoing Finnhub traffic.
+ * Each API key from {@link ApiKeyManager} gets its own accounting for the free tier
+ * limits (60 REST calls per minute, 30 calls per second). REST calls are assigned the
+ * key with the earliest free permit, and WebSocket messages draw from the per-second
+ * budget of the key the socket is opened with.
+ */
+public class FinnhubRequestBudget {
+    private static final String TAG = "FinnhubRequestBudget";
+    private static final int CALLS_PER_MINUTE = 60;
+    private static final long MINUTE_MS = 60000;
+    private static final int CALLS_PER_SECOND = 30;
+    private static final long SECOND_MS = 1000;
+    private static final long RATE_LIMITED_COOLDOWN_MS = 60000;
+
+    private static FinnhubRequestBudget instance;
+
+    private final List<KeyBudget> keyBudgets;
+    private final FinnhubRateLimiter socketLimiter;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * A reserved REST call: the key to send it with and how long to wait first.
+     */
+    public static class Permit {
+        private final String apiKey;
+        private final long delayMs;
+
+        Permit(String apiKey, long delayMs) {
+            this.apiKey = apiKey;
+            this.delayMs = delayMs;
+        }
+
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        public long getDelayMs() {
+            return delayMs;
+        }
+    }
+
+    private FinnhubRequestBudget() {
+        List<KeyBudget> budgets = new ArrayList<>();
+        for (String apiKey : ApiKeyManager.getInstance().getApiKeys()) {
+            budgets.add(new KeyBudget(apiKey));
+        }
+        this.keyBudgets = Collections.unmodifiableList(budgets);
+        this.socketLimiter = findSocketLimiter();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        Log.d(TAG, "Request budget initialized for " + keyBudgets.size() + " API keys");
+    }
+
+    public static synchronized FinnhubRequestBudget getInstance() {
+        if (instance == null) {
+            instance = new FinnhubRequestBudget();
+        }
+        return instance;
+    }
+
+    /**
+     * Reserves one REST call on the key that can send it soonest.
+     */
+    public synchronized Permit reserveRestCall() {
+        if (keyBudgets.isEmpty()) {
+            throw new IllegalStateException("No Finnhub API keys configured");
+        }
+
+        KeyBudget best = keyBudgets.get(0);
+        long bestDelay = best.getEarliestDelayMs();
+        for (int i = 1; i < keyBudgets.size() && bestDelay > 0; i++) {
+            KeyBudget candidate = keyBudgets.get(i);
+            long delay = candidate.getEarliestDelayMs();
+            if (delay < bestDelay) {
+                best = candidate;
+                bestDelay = delay;
+            }
+        }
+
+        long delayMs = best.reserve();
+        if (delayMs > 0) {
+            Log.d(TAG, "REST budget exhausted, delaying call by " + delayMs + "ms");
+        }
+        return new Permit(best.apiKey, delayMs);
+    }
+
+    /**
+     * Runs the task once the permit's delay has elapsed.
+     *
+     * @return handle for cancelling a delayed task, or null if it ran immediately
+     */
+    public ScheduledFuture<?> runWhenPermitted(Permit permit, Runnable task) {
+        if (permit.getDelayMs() <= 0) {
+            task.run();
+            return null;
+        }
+        return scheduler.schedule(task, permit.getDelayMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records an HTTP 429 for a key so new calls avoid it until the cooldown passes.
+     */
+    public void reportRateLimited(String apiKey) {
+        for (KeyBudget budget : keyBudgets) {
+            if (budget.apiKey.equals(apiKey)) {
+                budget.blockedUntil = SystemClock.elapsedRealtime() + RATE_LIMITED_COOLDOWN_MS;
+                Log.w(TAG, "API key rate limited, cooling down for " + RATE_LIMITED_COOLDOWN_MS + "ms");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Limiter for WebSocket messages, shared with REST calls made on the same key.
+     */
+    public FinnhubRateLimiter getSocketLimiter() {
+        return socketLimiter;
+    }
+
+    /**
+     * Number of REST calls that could be sent right now across all keys.
+     */
+    public int getAvailableRestCalls() {
+        int available = 0;
+        for (KeyBudget budget : keyBudgets) {
+            if (budget.getEarliestDelayMs() == 0) {
+                available += Math.min(budget.perMinute.getAvailablePermits(),
+                        budget.perSecond.getAvailablePermits());
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Milliseconds until any key could send a REST call, 0 if one can go now.
+     */
+    public long getEarliestRestDelayMs() {
+        long earliest = Long.MAX_VALUE;
+        for (KeyBudget budget : keyBudgets) {
+            earliest = Math.min(earliest, budget.getEarliestDelayMs());
+            if (earliest == 0) {
+                break;
+            }
+        }
+        return earliest == Long.MAX_VALUE ? 0 : earliest;
+    }
+
+    private FinnhubRateLimiter findSocketLimiter() {
+        for (KeyBudget budget : keyBudgets) {
+            if (budget.apiKey.equals(BuildConfig.FINNHUB_API_KEY)) {
+                return budget.perSecond;
+            }
+        }
+        return new FinnhubRateLimiter(CALLS_PER_SECOND, SECOND_MS);
+    }
+
+    /**
+     * Quota state of a single API key
+     */
+    private static class KeyBudget {
+        final String apiKey;
+        final FinnhubRateLimiter perMinute = new FinnhubRateLimiter(CALLS_PER_MINUTE, MINUTE_MS);
+        final FinnhubRateLimiter perSecond = new FinnhubRateLimiter(CALLS_PER_SECOND, SECOND_MS);
+        volatile long blockedUntil = 0;
+
+        KeyBudget(String apiKey) {
+            this.apiKey = apiKey;
+        }
+
+        long getEarliestDelayMs() {
+            long cooldown = Math.max(0, blockedUntil - SystemClock.elapsedRealtime());
+            return Math.max(cooldown, Math.max(perMinute.getEarliestPermitDelayMs(),
+                    perSecond.getEarliestPermitDelayMs()));
+        }
+
+        long reserve() {
+            long cooldown = Math.max(0, blockedUntil - SystemClock.elapsedRealtime());
+            return Math.max(cooldown, Math.max(perMinute.reserve(), perSecond.reserve()));
+        }
+    }
+}
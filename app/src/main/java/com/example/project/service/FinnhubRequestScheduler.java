@@ -0,0 +1,233 @@
+package com.example.project.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Priority scheduler in front of all Finnhub REST calls.
+ * A single dispatcher thread hands out the shared {@link FinnhubRequestBudget} in
+ * priority order, so what the visible screen needs never waits behind background
+ * refreshes. When the budget runs low, lower priorities are deferred to keep headroom
+ * for foreground work, and supplementary work that has waited too long is shed.
+ */
+public class FinnhubRequestScheduler {
+    private static final String TAG = "FinnhubRequestScheduler";
+    private static final long MAX_IDLE_WAIT_MS = 1000;
+
+    private static FinnhubRequestScheduler instance;
+
+    /**
+     * Request classes, highest priority first.
+     */
+    public enum Priority {
+        FOREGROUND_QUOTE(0, 0),
+        CHART(0, 0),
+        BACKGROUND(3, 60000),
+        SUPPLEMENTARY(6, 30000);
+
+        // REST calls that must stay available for higher priorities before this one runs
+        final int reservedHeadroom;
+        // How long a task may wait before it is dropped, 0 to never drop it
+        final long maxWaitMs;
+
+        Priority(int reservedHeadroom, long maxWaitMs) {
+            this.reservedHeadroom = reservedHeadroom;
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+
+    /**
+     * Work to run once the scheduler has assigned an API key.
+     */
+    public interface RequestTask {
+        void send(String apiKey);
+        void onDropped(String reason);
+    }
+
+    private final FinnhubRequestBudget budget;
+    private final PriorityBlockingQueue<ScheduledRequest> queue;
+    private final AtomicLong sequence;
+    private final Object wakeLock = new Object();
+    private final Thread dispatcher;
+
+    private FinnhubRequestScheduler() {
+        this.budget = FinnhubRequestBudget.getInstance();
+        this.queue = new PriorityBlockingQueue<>();
+        this.sequence = new AtomicLong(0);
+        this.dispatcher = new Thread(this::dispatchLoop, "finnhub-request-scheduler");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public static synchronized FinnhubRequestScheduler getInstance() {
+        if (instance == null) {
+            instance = new FinnhubRequestScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a request.
+     *
+     * @param priority Request class
+     * @param owner    Tag used by {@link #cancel(Object)}
+     * @param task     Work to run with the assigned API key
+     */
+    public void submit(Priority priority, Object owner, RequestTask task) {
+        queue.offer(new ScheduledRequest(priority, owner, task, sequence.getAndIncrement(),
+                SystemClock.elapsedRealtime()));
+        wakeDispatcher();
+    }
+
+    /**
+     * Drops every queued request submitted by the owner. Requests already sent are
+     * not affected.
+     */
+    public void cancel(Object owner) {
+        int removed = 0;
+        Iterator<ScheduledRequest> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            ScheduledRequest request = iterator.next();
+            if (request.owner == owner && queue.remove(request)) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            Log.d(TAG, "Cancelled " + removed + " queued requests");
+        }
+    }
+
+    /**
+     * Raises the priority of the owner's queued requests. Requests already at or above
+     * the priority, and requests already sent, are left alone.
+     */
+    public void promote(Object owner, Priority priority) {
+        Iterator<ScheduledRequest> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            ScheduledRequest request = iterator.next();
+            if (request.owner == owner && priority.ordinal() < request.priority.ordinal()
+                    && queue.remove(request)) {
+                queue.offer(new ScheduledRequest(priority, owner, request.task,
+                        request.sequence, request.enqueuedAt));
+                wakeDispatcher();
+            }
+        }
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    private void wakeDispatcher() {
+        synchronized (wakeLock) {
+            wakeLock.notifyAll();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (true) {
+            try {
+                ScheduledRequest request = queue.take();
+                shedExpired();
+
+                long waitMs = getWaitMs(request.priority);
+                if (waitMs > 0) {
+                    // Put it back and wait; a higher-priority request wakes us early
+                    queue.offer(request);
+                    synchronized (wakeLock) {
+                        wakeLock.wait(Math.min(waitMs, MAX_IDLE_WAIT_MS));
+                    }
+                    continue;
+                }
+
+                dispatch(request);
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Dispatcher interrupted, stopping");
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error dispatching request", e);
+            }
+        }
+    }
+
+    /**
+     * How long a request of this priority has to wait for budget, 0 to send now.
+     */
+    private long getWaitMs(Priority priority) {
+        long delayMs = budget.getEarliestRestDelayMs();
+        if (delayMs > 0) {
+            return delayMs;
+        }
+        if (priority.reservedHeadroom > 0
+                && budget.getAvailableRestCalls() <= priority.reservedHeadroom) {
+            // Budget is tight: defer until permits refill
+            return MAX_IDLE_WAIT_MS;
+        }
+        return 0;
+    }
+
+    private void dispatch(ScheduledRequest request) {
+        FinnhubRequestBudget.Permit permit = budget.reserveRestCall();
+        String apiKey = permit.getApiKey();
+        budget.runWhenPermitted(permit, () -> request.task.send(apiKey));
+    }
+
+    /**
+     * Drops requests that waited longer than their priority allows
+     */
+    private void shedExpired() {
+        long now = SystemClock.elapsedRealtime();
+        List<ScheduledRequest> shed = null;
+
+        Iterator<ScheduledRequest> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            ScheduledRequest request = iterator.next();
+            long maxWait = request.priority.maxWaitMs;
+            if (maxWait > 0 && now - request.enqueuedAt > maxWait && queue.remove(request)) {
+                if (shed == null) {
+                    shed = new ArrayList<>();
+                }
+                shed.add(request);
+            }
+        }
+
+        if (shed != null) {
+            Log.w(TAG, "Shed " + shed.size() + " low-priority requests, rate budget exhausted");
+            for (ScheduledRequest request : shed) {
+                request.task.onDropped("Request dropped: rate budget exhausted");
+            }
+        }
+    }
+
+    /**
+     * Queued request ordered by priority, then submission order
+     */
+    private static class ScheduledRequest implements Comparable<ScheduledRequest> {
+        final Priority priority;
+        final Object owner;
+        final RequestTask task;
+        final long sequence;
+        final long enqueuedAt;
+
+        ScheduledRequest(Priority priority, Object owner, RequestTask task, long sequence, long enqueuedAt) {
+            this.priority = priority;
+            this.owner = owner;
+            this.task = task;
+            this.sequence = sequence;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        @Override
+        public int compareTo(ScheduledRequest other) {
+            int byPriority = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
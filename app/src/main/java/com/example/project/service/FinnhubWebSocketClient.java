@@ -1,42 +1,64 @@
 package com.example.project.service;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import com.example.project.BuildConfig;
-import com.example.project.model.TradeMessage;
-import com.google.gson.Gson;
 
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.WebSocket;
 import okhttp3.WebSocketListener;
+import okio.ByteString;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * WebSocket client for connecting to Finnhub API and receiving real-time stock trades
+ * WebSocket client for connecting to Finnhub API and receiving real-time stock trades.
+ * Supervises the connection: after an unexpected close it reconnects with jittered
+ * exponential backoff and replays the desired symbol set through the rate limiter.
  */
 public class FinnhubWebSocketClient extends WebSocketListener {
     private static final String TAG = "FinnhubWebSocket";
     private static final String FINNHUB_WS_URL = "wss://ws.finnhub.io?token=";
 
-    private WebSocket webSocket;
+    // Reconnect backoff
+    private static final long RECONNECT_BASE_DELAY_MS = 1000;
+    private static final long RECONNECT_MAX_DELAY_MS = 60000;
+    private static final long RATE_LIMITED_MIN_DELAY_MS = 30000;
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    private volatile WebSocket webSocket;
     private OkHttpClient client;
-    private Gson gson;
-    private Set<String> subscribedSymbols;
+    private final TradeFrameParser frameParser;
+    private final Set<String> subscribedSymbols;
+    // Symbols the caller wants streamed, kept across disconnects and replayed on open
+    private final Set<String> desiredSymbols;
     private TradeUpdateListener tradeUpdateListener;
-    private boolean isConnected = false;
+    private volatile boolean isConnected = false;
+
+    // Connection supervision
+    private final Handler reconnectHandler;
+    private final Runnable reconnectRunnable;
+    private final AtomicInteger reconnectAttempts;
+    private volatile boolean shouldReconnect = false;
 
     // Rate limiting components
     private FinnhubRateLimiter rateLimiter;
     private SubscriptionQueue subscriptionQueue;
     private RateLimitListener rateLimitListener;
 
+    /**
+     * Receives trades on the WebSocket reader thread, one call per trade in a frame.
+     */
     public interface TradeUpdateListener {
-        void onTradeUpdate(TradeMessage tradeMessage);
+        void onTrade(String symbol, double price, double volume, long timestamp);
         void onConnectionStatusChanged(boolean connected);
     }
 
@@ -46,14 +68,16 @@ public class FinnhubWebSocketClient extends WebSocketListener {
     }
 
     public FinnhubWebSocketClient() {
-        this.client = new OkHttpClient.Builder()
-                .readTimeout(0, TimeUnit.MILLISECONDS)
-                .build();
-        this.gson = new Gson();
-        this.subscribedSymbols = new HashSet<>();
-
-        // Initialize rate limiting components
-        this.rateLimiter = new FinnhubRateLimiter();
+        this.client = HttpClientProvider.getInstance().getWebSocketClient();
+        this.frameParser = new TradeFrameParser();
+        this.subscribedSymbols = ConcurrentHashMap.newKeySet();
+        this.desiredSymbols = ConcurrentHashMap.newKeySet();
+        this.reconnectHandler = new Handler(Looper.getMainLooper());
+        this.reconnectRunnable = this::reconnect;
+        this.reconnectAttempts = new AtomicInteger(0);
+
+        // Subscribe messages draw from the same per-second budget as REST calls on the socket's key
+        this.rateLimiter = FinnhubRequestBudget.getInstance().getSocketLimiter();
         this.subscriptionQueue = new SubscriptionQueue(rateLimiter);
         setupSubscriptionQueueCallback();
     }
@@ -70,7 +94,7 @@ public class FinnhubWebSocketClient extends WebSocketListener {
         subscriptionQueue.setCallback(new SubscriptionQueue.SubscriptionCallback() {
             @Override
             public void onSubscriptionProcessed(String symbol, boolean isSubscribe, boolean success) {
-                if (success) {
+                if (success && isConnected) {
                     if (isSubscribe) {
                         subscribedSymbols.add(symbol);
                     } else {
@@ -89,11 +113,17 @@ public class FinnhubWebSocketClient extends WebSocketListener {
     }
 
     public void connect() {
-        if (isConnected) {
-            Log.d(TAG, "Already connected");
+        shouldReconnect = true;
+        reconnectHandler.removeCallbacks(reconnectRunnable);
+
+        if (isConnected || webSocket != null) {
+            Log.d(TAG, "Already connected or connecting");
             return;
         }
+        openSocket();
+    }
 
+    private void openSocket() {
         Request request = new Request.Builder()
                 .url(FINNHUB_WS_URL + BuildConfig.FINNHUB_API_KEY)
                 .build();
@@ -102,20 +132,25 @@ public class FinnhubWebSocketClient extends WebSocketListener {
         Log.d(TAG, "Connecting to Finnhub WebSocket...");
     }
 
+    /**
+     * Closes the socket and stops reconnecting. The desired symbol set is kept, so the
+     * next {@link #connect()} resumes the same subscriptions.
+     */
     public void disconnect() {
-        if (webSocket != null) {
-            // Unsubscribe from all symbols before disconnecting
-            for (String symbol : new HashSet<>(subscribedSymbols)) {
-                unsubscribe(symbol);
-            }
-            webSocket.close(1000, "Client disconnecting");
-            webSocket = null;
+        shouldReconnect = false;
+        reconnectHandler.removeCallbacks(reconnectRunnable);
+        reconnectAttempts.set(0);
+
+        WebSocket socket = webSocket;
+        webSocket = null;
+        if (socket != null) {
+            // Closing the socket drops every server-side subscription
+            socket.close(1000, "Client disconnecting");
         }
 
         // Clear any pending subscription requests
-        if (subscriptionQueue != null) {
-            subscriptionQueue.clear();
-        }
+        subscriptionQueue.clear();
+        subscribedSymbols.clear();
 
         isConnected = false;
         if (tradeUpdateListener != null) {
@@ -124,38 +159,34 @@ public class FinnhubWebSocketClient extends WebSocketListener {
         Log.d(TAG, "Disconnected from WebSocket");
     }
 
+    /**
+     * Adds a symbol to the desired set. Sent right away when connected, otherwise
+     * replayed once the socket opens.
+     */
     public void subscribe(String symbol) {
-        if (webSocket != null && isConnected) {
-            // Queue the subscription request with rate limiting
-            subscriptionQueue.enqueueSubscribe(symbol, (sym, isSubscribe) -> {
-                if (webSocket != null && isConnected) {
-                    String subscribeMessage = String.format("{\"type\":\"subscribe\",\"symbol\":\"%s\"}", sym);
-                    boolean sent = webSocket.send(subscribeMessage);
-                    if (sent) {
-                        Log.d(TAG, "Subscribed to: " + sym);
-                    } else {
-                        Log.e(TAG, "Failed to send subscribe message for: " + sym);
-                    }
-                    return sent;
-                }
-                return false;
-            });
+        if (!desiredSymbols.add(symbol)) {
+            return;
+        }
 
-            if (rateLimitListener != null) {
-                rateLimitListener.onSubscriptionQueued(symbol, true);
-            }
+        if (isConnected) {
+            enqueueSubscribe(symbol);
         } else {
-            Log.w(TAG, "Cannot subscribe - not connected");
+            Log.d(TAG, "Not connected, " + symbol + " will be subscribed on connect");
         }
     }
 
     public void unsubscribe(String symbol) {
-        if (webSocket != null && isConnected) {
+        if (!desiredSymbols.remove(symbol)) {
+            return;
+        }
+
+        if (isConnected) {
             // Queue the unsubscription request with rate limiting
+            WebSocket socket = webSocket;
             subscriptionQueue.enqueueUnsubscribe(symbol, (sym, isSubscribe) -> {
-                if (webSocket != null && isConnected) {
+                if (socket == webSocket && isConnected) {
                     String unsubscribeMessage = String.format("{\"type\":\"unsubscribe\",\"symbol\":\"%s\"}", sym);
-                    boolean sent = webSocket.send(unsubscribeMessage);
+                    boolean sent = socket.send(unsubscribeMessage);
                     if (sent) {
                         Log.d(TAG, "Unsubscribed from: " + sym);
                     } else {
@@ -172,6 +203,74 @@ public class FinnhubWebSocketClient extends WebSocketListener {
         }
     }
 
+    private void enqueueSubscribe(String symbol) {
+        // Queue the subscription request with rate limiting; it is dropped if the
+        // socket it was queued for has been replaced in the meantime
+        WebSocket socket = webSocket;
+        subscriptionQueue.enqueueSubscribe(symbol, (sym, isSubscribe) -> {
+            if (socket == webSocket && isConnected && desiredSymbols.contains(sym)) {
+                String subscribeMessage = String.format("{\"type\":\"subscribe\",\"symbol\":\"%s\"}", sym);
+                boolean sent = socket.send(subscribeMessage);
+                if (sent) {
+                    Log.d(TAG, "Subscribed to: " + sym);
+                } else {
+                    Log.e(TAG, "Failed to send subscribe message for: " + sym);
+                }
+                return sent;
+            }
+            return false;
+        });
+
+        if (rateLimitListener != null) {
+            rateLimitListener.onSubscriptionQueued(symbol, true);
+        }
+    }
+
+    /**
+     * Schedules the next reconnect attempt. Delay doubles per attempt up to a cap,
+     * with equal jitter so many clients don't reconnect in lockstep.
+     */
+    private void scheduleReconnect(boolean rateLimited) {
+        if (!shouldReconnect) {
+            return;
+        }
+
+        int attempt = reconnectAttempts.getAndIncrement();
+        long backoff = Math.min(RECONNECT_MAX_DELAY_MS,
+                RECONNECT_BASE_DELAY_MS << Math.min(attempt, MAX_BACKOFF_SHIFT));
+        if (rateLimited) {
+            backoff = Math.max(backoff, RATE_LIMITED_MIN_DELAY_MS);
+        }
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+
+        reconnectHandler.removeCallbacks(reconnectRunnable);
+        reconnectHandler.postDelayed(reconnectRunnable, delay);
+        Log.d(TAG, "Reconnecting in " + delay + "ms (attempt " + (attempt + 1) + ")");
+    }
+
+    private void reconnect() {
+        if (shouldReconnect && webSocket == null) {
+            openSocket();
+        }
+    }
+
+    /**
+     * Handles the end of the current socket, whatever the cause
+     */
+    private void onSocketLost(boolean rateLimited) {
+        webSocket = null;
+        isConnected = false;
+
+        // Pending sends belong to the dead socket; desiredSymbols is replayed on reopen
+        subscriptionQueue.clear();
+        subscribedSymbols.clear();
+
+        if (tradeUpdateListener != null) {
+            tradeUpdateListener.onConnectionStatusChanged(false);
+        }
+        scheduleReconnect(rateLimited);
+    }
+
     public boolean isConnected() {
         return isConnected;
     }
@@ -180,6 +279,14 @@ public class FinnhubWebSocketClient extends WebSocketListener {
         return new HashSet<>(subscribedSymbols);
     }
 
+    public Set<String> getDesiredSymbols() {
+        return new HashSet<>(desiredSymbols);
+    }
+
+    public int getReconnectAttempts() {
+        return reconnectAttempts.get();
+    }
+
     /**
      * Gets the current rate limiter stats for monitoring
      */
@@ -204,9 +311,22 @@ public class FinnhubWebSocketClient extends WebSocketListener {
     @Override
     public void onOpen(WebSocket webSocket, Response response) {
         super.onOpen(webSocket, response);
+        if (webSocket != this.webSocket) {
+            // Opened after disconnect() or replaced by a newer socket
+            webSocket.close(1000, "Stale connection");
+            return;
+        }
+
         isConnected = true;
+        reconnectAttempts.set(0);
         Log.d(TAG, "WebSocket connected successfully");
 
+        // Replay the desired set; a fresh socket has no subscriptions
+        subscribedSymbols.clear();
+        for (String symbol : desiredSymbols) {
+            enqueueSubscribe(symbol);
+        }
+
         if (tradeUpdateListener != null) {
             tradeUpdateListener.onConnectionStatusChanged(true);
         }
@@ -217,18 +337,41 @@ public class FinnhubWebSocketClient extends WebSocketListener {
         super.onMessage(webSocket, text);
 
         try {
-            // Parse the JSON message
-            TradeMessage tradeMessage = gson.fromJson(text, TradeMessage.class);
+            if (frameParser.parse(text)) {
+                dispatchTrades();
+            }
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Error parsing message: " + text, e);
+        }
+    }
 
-            if (tradeMessage != null && "trade".equals(tradeMessage.getType())
-                    && tradeMessage.getData() != null && !tradeMessage.getData().isEmpty()) {
+    @Override
+    public void onMessage(WebSocket webSocket, ByteString bytes) {
+        super.onMessage(webSocket, bytes);
 
-                if (tradeUpdateListener != null) {
-                    tradeUpdateListener.onTradeUpdate(tradeMessage);
-                }
+        try {
+            // Binary frames are parsed straight from the frame bytes
+            if (frameParser.parse(bytes)) {
+                dispatchTrades();
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing message: " + text, e);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Error parsing binary message: " + bytes.size() + " bytes", e);
+        }
+    }
+
+    /**
+     * Hands the trades of the last parsed frame to the listener
+     */
+    private void dispatchTrades() {
+        TradeUpdateListener listener = tradeUpdateListener;
+        if (listener == null) {
+            return;
+        }
+
+        int count = frameParser.getTradeCount();
+        for (int i = 0; i < count; i++) {
+            listener.onTrade(frameParser.getSymbol(i), frameParser.getPrice(i),
+                    frameParser.getVolume(i), frameParser.getTimestamp(i));
         }
     }
 
@@ -236,49 +379,45 @@ public class FinnhubWebSocketClient extends WebSocketListener {
     public void onClosing(WebSocket webSocket, int code, String reason) {
         super.onClosing(webSocket, code, reason);
         Log.d(TAG, "WebSocket closing: " + reason);
-        isConnected = false;
+        if (webSocket == this.webSocket) {
+            isConnected = false;
+        }
+        // Complete the close handshake so onClosed follows
+        webSocket.close(1000, null);
     }
 
     @Override
     public void onClosed(WebSocket webSocket, int code, String reason) {
         super.onClosed(webSocket, code, reason);
         Log.d(TAG, "WebSocket closed: " + reason);
-        isConnected = false;
-        if (tradeUpdateListener != null) {
-            tradeUpdateListener.onConnectionStatusChanged(false);
+        if (webSocket == this.webSocket) {
+            onSocketLost(false);
         }
     }
 
     @Override
     public void onFailure(WebSocket webSocket, Throwable t, Response response) {
         super.onFailure(webSocket, t, response);
+        if (webSocket != this.webSocket) {
+            return;
+        }
 
         // Check for HTTP 429 (Too Many Requests) status code
-        if (response != null && response.code() == 429) {
+        boolean rateLimited = response != null && response.code() == 429;
+        if (rateLimited) {
             Log.e(TAG, "Rate limit exceeded (HTTP 429). Too many API requests.");
-            Log.e(TAG, "Current request count: " + getCurrentRequestCount() + "/30");
+            Log.e(TAG, "Current request count: " + getCurrentRequestCount() + "/" + rateLimiter.getPermits());
             Log.e(TAG, "Pending subscriptions: " + getPendingSubscriptionCount());
 
-            // Reset the rate limiter to recover from rate limit errors
-            if (rateLimiter != null) {
-                rateLimiter.reset();
-                Log.d(TAG, "Rate limiter reset due to 429 error");
-            }
-
-            // Clear pending requests to prevent further rate limit violations
-            if (subscriptionQueue != null) {
-                subscriptionQueue.clear();
-                Log.d(TAG, "Subscription queue cleared due to 429 error");
-            }
+            // Steer REST calls away from the socket's key while it cools down
+            FinnhubRequestBudget.getInstance().reportRateLimited(BuildConfig.FINNHUB_API_KEY);
         } else if (response != null) {
             Log.e(TAG, "WebSocket error with HTTP code: " + response.code());
         } else {
             Log.e(TAG, "WebSocket error", t);
         }
 
-        isConnected = false;
-        if (tradeUpdateListener != null) {
-            tradeUpdateListener.onConnectionStatusChanged(false);
-        }
+        // Pending requests are dropped with the socket and replayed after the backoff
+        onSocketLost(rateLimited);
     }
 }
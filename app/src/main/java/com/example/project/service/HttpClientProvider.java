@@ -0,0 +1,83 @@
+package com.example.project.service;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Process-wide source of OkHttp clients.
+ * All clients derive from one base client with {@link OkHttpClient#newBuilder()}, so they
+ * share its connection pool and dispatcher threads: REST calls reuse warm keep-alive
+ * (HTTP/2 where offered) connections to Finnhub instead of opening new ones per service
+ * instance, and only the timeouts differ per use.
+ */
+public class HttpClientProvider {
+    private static final String TAG = "HttpClientProvider";
+    private static final int REST_TIMEOUT_SECONDS = 30;
+
+    // Finnhub is one host; a few idle connections cover REST plus the socket
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // FinnhubRequestScheduler meters calls to the rate budget (at most 60 per minute per
+    // key), so only a handful are ever in flight; the limits just cap bursts of retries
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+
+    private static HttpClientProvider instance;
+
+    private final OkHttpClient restClient;
+    private final OkHttpClient webSocketClient;
+
+    private HttpClientProvider() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        OkHttpClient baseClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .build();
+
+        this.restClient = baseClient.newBuilder()
+                .connectTimeout(REST_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(REST_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .writeTimeout(REST_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        // A socket can stay quiet for long periods outside market hours
+        this.webSocketClient = baseClient.newBuilder()
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .build();
+
+        Log.d(TAG, "Shared HTTP client initialized");
+    }
+
+    public static synchronized HttpClientProvider getInstance() {
+        if (instance == null) {
+            instance = new HttpClientProvider();
+        }
+        return instance;
+    }
+
+    /**
+     * Client for Finnhub REST calls.
+     */
+    public OkHttpClient getRestClient() {
+        return restClient;
+    }
+
+    /**
+     * Client for the Finnhub WebSocket (no read timeout).
+     */
+    public OkHttpClient getWebSocketClient() {
+        return webSocketClient;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.project.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.project.model.StockQuote;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of the latest quote per symbol, shared by every screen.
+ * An entry younger than its TTL is fresh and served without a request. An older entry
+ * is still served up to {@link #MAX_STALE_MS} while a revalidation request runs; after
+ * that it counts as a miss.
+ */
+public class QuoteCache {
+    private static final String TAG = "QuoteCache";
+    public static final long DEFAULT_TTL_MS = 15000;
+    public static final long MAX_STALE_MS = 5 * 60000;
+
+    private static QuoteCache instance;
+
+    private final Map<String, Entry> entries;
+    private final Map<String, Long> ttlOverrides;
+    private final AtomicLong hits;
+    private final AtomicLong staleHits;
+    private final AtomicLong misses;
+
+    /**
+     * A cached quote and whether it is still within its TTL.
+     */
+    public static class Entry {
+        private final StockQuote quote;
+        private final long storedAt;
+        private final boolean fresh;
+
+        Entry(StockQuote quote, long storedAt, boolean fresh) {
+            this.quote = quote;
+            this.storedAt = storedAt;
+            this.fresh = fresh;
+        }
+
+        public StockQuote getQuote() {
+            return quote;
+        }
+
+        public boolean isFresh() {
+            return fresh;
+        }
+
+        public long getAgeMs() {
+            return SystemClock.elapsedRealtime() - storedAt;
+        }
+    }
+
+    private QuoteCache() {
+        this.entries = new ConcurrentHashMap<>();
+        this.ttlOverrides = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong(0);
+        this.staleHits = new AtomicLong(0);
+        this.misses = new AtomicLong(0);
+    }
+
+    public static synchronized QuoteCache getInstance() {
+        if (instance == null) {
+            instance = new QuoteCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Looks up a quote for a request and records a hit, stale hit or miss.
+     *
+     * @return the entry, or null if there is none or it is too old to serve
+     */
+    public Entry get(String symbol) {
+        Entry entry = lookup(symbol);
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else if (entry.fresh) {
+            hits.incrementAndGet();
+        } else {
+            staleHits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the cached quote if it was quoted after the given time, without touching
+     * the counters; otherwise null. Lets a screen swap in a newer price without ever
+     * replacing the one it shows with an older one.
+     *
+     * @param timeMs Epoch milliseconds of the price the caller already has
+     */
+    public StockQuote peekNewerThan(String symbol, long timeMs) {
+        Entry entry = lookup(symbol);
+        if (entry == null || entry.quote.getTimestamp() * 1000L <= timeMs) {
+            return null;
+        }
+        return entry.quote;
+    }
+
+    public void put(String symbol, StockQuote quote) {
+        entries.put(symbol, new Entry(quote, SystemClock.elapsedRealtime(), true));
+    }
+
+    public void invalidate(String symbol) {
+        entries.remove(symbol);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Overrides the TTL for one symbol, e.g. a shorter one while its detail screen
+     * is visible.
+     */
+    public void setTtl(String symbol, long ttlMs) {
+        ttlOverrides.put(symbol, ttlMs);
+    }
+
+    public void clearTtl(String symbol) {
+        ttlOverrides.remove(symbol);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getStaleHitCount() {
+        return staleHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Share of lookups answered from the cache, fresh or stale
+     */
+    public double getHitRate() {
+        long served = hits.get() + staleHits.get();
+        long total = served + misses.get();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    public void logStats() {
+        Log.d(TAG, String.format("Quote cache: %d hits, %d stale hits, %d misses (%.0f%% served from cache)",
+                hits.get(), staleHits.get(), misses.get(), getHitRate() * 100));
+    }
+
+    private Entry lookup(String symbol) {
+        Entry entry = entries.get(symbol);
+        if (entry == null) {
+            return null;
+        }
+
+        long age = SystemClock.elapsedRealtime() - entry.storedAt;
+        if (age > MAX_STALE_MS) {
+            entries.remove(symbol, entry);
+            return null;
+        }
+
+        Long ttl = ttlOverrides.get(symbol);
+        boolean fresh = age <= (ttl != null ? ttl : DEFAULT_TTL_MS);
+        return fresh ? entry : new Entry(entry.quote, entry.storedAt, false);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.project.service;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.project.model.StockQuote;
+import com.example.project.service.FinnhubRequestScheduler.Priority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The one periodic REST quote loop in the app.
+ * Each consumer (portfolio, watchlist, ...) holds a {@link Subscription} with the symbols
+ * it needs and turns it on while it wants periodic quotes. Every cycle fetches each
+ * symbol in the union of the active subscriptions once, and the quote is handed to every
+ * active subscription that contains it. Main thread only.
+ */
+public class QuoteRefreshEngine {
+    private static final String TAG = "QuoteRefreshEngine";
+    private static final long REFRESH_INTERVAL = 30000; // 30 seconds
+
+    private static QuoteRefreshEngine instance;
+
+    private final FinnhubApiService apiService;
+    private final Handler mainHandler;
+    private final List<Subscription> subscriptions;
+    private final Runnable refreshRunnable;
+    private boolean isRefreshing = false;
+
+    /**
+     * Receives quotes for a subscription's symbols on the main thread.
+     */
+    public interface QuoteListener {
+        void onQuote(String symbol, StockQuote quote);
+    }
+
+    private QuoteRefreshEngine() {
+        this.apiService = new FinnhubApiService();
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.subscriptions = new ArrayList<>();
+        this.refreshRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (isRefreshing) {
+                    refreshActiveSymbols();
+                    mainHandler.postDelayed(this, REFRESH_INTERVAL);
+                }
+            }
+        };
+    }
+
+    public static synchronized QuoteRefreshEngine getInstance() {
+        if (instance == null) {
+            instance = new QuoteRefreshEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Creates an inactive subscription with no symbols.
+     */
+    public Subscription subscribe(QuoteListener listener) {
+        Subscription subscription = new Subscription(listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Runs the loop while at least one subscription is active. A newly started loop
+     * refreshes right away.
+     */
+    private void updateLoop() {
+        boolean needed = false;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.active && !subscription.symbols.isEmpty()) {
+                needed = true;
+                break;
+            }
+        }
+
+        if (needed && !isRefreshing) {
+            isRefreshing = true;
+            mainHandler.post(refreshRunnable);
+            Log.d(TAG, "Started quote refresh (30s interval)");
+        } else if (!needed && isRefreshing) {
+            isRefreshing = false;
+            mainHandler.removeCallbacks(refreshRunnable);
+            Log.d(TAG, "Stopped quote refresh");
+        }
+    }
+
+    private void refreshActiveSymbols() {
+        Set<String> symbols = new LinkedHashSet<>();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.active) {
+                symbols.addAll(subscription.symbols);
+            }
+        }
+
+        Log.d(TAG, "Refreshing " + symbols.size() + " symbols for " + subscriptions.size() + " subscriptions");
+        for (String symbol : symbols) {
+            apiService.fetchQuote(symbol, Priority.BACKGROUND, newQuoteCallback(symbol));
+        }
+    }
+
+    private FinnhubApiService.QuoteCallback newQuoteCallback(String symbol) {
+        return new FinnhubApiService.QuoteCallback() {
+            @Override
+            public void onSuccess(StockQuote quote) {
+                mainHandler.post(() -> publish(symbol, quote));
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error fetching quote for " + symbol + ": " + error);
+            }
+        };
+    }
+
+    private void publish(String symbol, StockQuote quote) {
+        for (Subscription subscription : new ArrayList<>(subscriptions)) {
+            boolean requested = subscription.requested.remove(symbol);
+            if ((subscription.active || requested) && subscription.symbols.contains(symbol)) {
+                subscription.listener.onQuote(symbol, quote);
+            }
+        }
+    }
+
+    /**
+     * One consumer's symbols. Quotes reach its listener while it is active, plus the
+     * ones it asks for with {@link #refreshNow}.
+     */
+    public class Subscription {
+        private final QuoteListener listener;
+        private final Set<String> symbols = new HashSet<>();
+        // Symbols with a one-off refresh in flight, delivered even while inactive
+        private final Set<String> requested = new HashSet<>();
+        private boolean active = false;
+
+        private Subscription(QuoteListener listener) {
+            this.listener = listener;
+        }
+
+        public void addSymbol(String symbol) {
+            symbols.add(symbol);
+            updateLoop();
+        }
+
+        public void removeSymbol(String symbol) {
+            symbols.remove(symbol);
+            requested.remove(symbol);
+            updateLoop();
+        }
+
+        public void setSymbols(Collection<String> newSymbols) {
+            symbols.clear();
+            symbols.addAll(newSymbols);
+            requested.retainAll(symbols);
+            updateLoop();
+        }
+
+        /**
+         * Turns periodic quotes for this subscription on or off.
+         */
+        public void setActive(boolean active) {
+            if (this.active != active) {
+                this.active = active;
+                boolean wasRefreshing = isRefreshing;
+                updateLoop();
+                if (active && wasRefreshing) {
+                    // The running loop would only reach these symbols next cycle
+                    refreshNow();
+                }
+            }
+        }
+
+        /**
+         * Fetches quotes for all of this subscription's symbols once, now.
+         */
+        public void refreshNow() {
+            for (String symbol : symbols) {
+                refreshNow(symbol, Priority.BACKGROUND);
+            }
+        }
+
+        /**
+         * Fetches one quote now, e.g. the first quote of a symbol just added.
+         */
+        public void refreshNow(String symbol, Priority priority) {
+            if (symbols.contains(symbol)) {
+                requested.add(symbol);
+                // One delivery only: a stale quote followed by its revalidation would
+                // clear the request on the stale one and drop the fresh one
+                apiService.fetchQuoteOnce(symbol, priority, newQuoteCallback(symbol));
+            }
+        }
+
+        public void unsubscribe() {
+            active = false;
+            subscriptions.remove(this);
+            updateLoop();
+        }
+    }
+}
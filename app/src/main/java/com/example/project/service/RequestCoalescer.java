@@ -0,0 +1,267 @@
+package com.example.project.service;
+
+import android.util.Log;
+
+import com.example.project.service.FinnhubRequestScheduler.Priority;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Shares one HTTP call between concurrent identical Finnhub requests.
+ * Requests are keyed by endpoint and parameters (never the API key). While a request
+ * is queued or in flight, further requests with the same key join it as waiters, and
+ * the parsed result is fanned out to every waiter.
+ */
+class RequestCoalescer {
+    private static final String TAG = "RequestCoalescer";
+
+    /**
+     * Parses a successful response body.
+     */
+    interface ResponseParser<T> {
+        T parse(String body) throws Exception;
+    }
+
+    /**
+     * Thrown by parsers for well-formed responses that carry no usable data; the
+     * message is passed to callbacks as is.
+     */
+    static class InvalidResponseException extends Exception {
+        InvalidResponseException(String message) {
+            super(message);
+        }
+    }
+
+    private final Map<String, InFlight<?>> inFlightRequests = new HashMap<>();
+    private final Object lock = new Object();
+    private final FinnhubRequestScheduler scheduler;
+    private final FinnhubRequestBudget budget;
+
+    RequestCoalescer() {
+        this.scheduler = FinnhubRequestScheduler.getInstance();
+        this.budget = FinnhubRequestBudget.getInstance();
+    }
+
+    /**
+     * Runs the request, or joins an identical one that is already queued or in flight.
+     *
+     * @param key       Endpoint and parameters identifying the request
+     * @param priority  Scheduling priority; a higher-priority joiner promotes a queued request
+     * @param owner     Tag used by {@link #cancel(Object)}
+     * @param client    Client that sends the call if this request starts it
+     * @param urlForKey Builds the request URL for the assigned API key
+     * @param parser    Parses the response body once for all waiters
+     * @param onSuccess Receives the parsed result
+     * @param onError   Receives an error message
+     */
+    <T> void execute(String key, Priority priority, Object owner, OkHttpClient client,
+                     Function<String, String> urlForKey, ResponseParser<T> parser,
+                     Consumer<T> onSuccess, Consumer<String> onError) {
+        Waiter<T> waiter = new Waiter<>(owner, onSuccess, onError);
+        InFlight<T> request;
+
+        synchronized (lock) {
+            @SuppressWarnings("unchecked")
+            InFlight<T> existing = (InFlight<T>) inFlightRequests.get(key);
+            if (existing != null) {
+                existing.waiters.add(waiter);
+                if (!existing.sent && priority.ordinal() < existing.priority.ordinal()) {
+                    existing.priority = priority;
+                    scheduler.promote(existing, priority);
+                }
+                Log.d(TAG, "Joined in-flight request " + key + " (" + existing.waiters.size() + " waiters)");
+                return;
+            }
+
+            request = new InFlight<>(key, priority, parser);
+            request.waiters.add(waiter);
+            inFlightRequests.put(key, request);
+        }
+
+        scheduler.submit(priority, request, new FinnhubRequestScheduler.RequestTask() {
+            @Override
+            public void send(String apiKey) {
+                synchronized (lock) {
+                    if (request.cancelled) {
+                        return;
+                    }
+                    request.sent = true;
+                }
+
+                Request httpRequest = new Request.Builder()
+                        .url(urlForKey.apply(apiKey))
+                        .get()
+                        .build();
+                Call call = client.newCall(httpRequest);
+                synchronized (lock) {
+                    if (request.cancelled) {
+                        return;
+                    }
+                    request.call = call;
+                }
+                call.enqueue(new ResponseHandler<>(request, apiKey));
+            }
+
+            @Override
+            public void onDropped(String reason) {
+                completeWithError(request, "Network error: " + reason);
+            }
+        });
+    }
+
+    /**
+     * Detaches every waiter registered by the owner. A request is only cancelled once
+     * no waiters remain, so other screens sharing it still get their result.
+     */
+    void cancel(Object owner) {
+        List<Call> callsToCancel = new ArrayList<>();
+
+        synchronized (lock) {
+            Iterator<InFlight<?>> iterator = inFlightRequests.values().iterator();
+            while (iterator.hasNext()) {
+                InFlight<?> request = iterator.next();
+                request.removeWaiters(owner);
+                if (request.waiters.isEmpty()) {
+                    request.cancelled = true;
+                    iterator.remove();
+                    scheduler.cancel(request);
+                    if (request.call != null) {
+                        callsToCancel.add(request.call);
+                    }
+                }
+            }
+        }
+
+        for (Call call : callsToCancel) {
+            call.cancel();
+        }
+    }
+
+    private <T> void completeWithResult(InFlight<T> request, T result) {
+        for (Waiter<T> waiter : finish(request)) {
+            waiter.onSuccess.accept(result);
+        }
+    }
+
+    private <T> void completeWithError(InFlight<T> request, String error) {
+        for (Waiter<T> waiter : finish(request)) {
+            waiter.onError.accept(error);
+        }
+    }
+
+    /**
+     * Removes the request from the in-flight map and returns its waiters
+     */
+    private <T> List<Waiter<T>> finish(InFlight<T> request) {
+        synchronized (lock) {
+            if (inFlightRequests.get(request.key) == request) {
+                inFlightRequests.remove(request.key);
+            }
+            List<Waiter<T>> waiters = new ArrayList<>(request.waiters);
+            request.waiters.clear();
+            return waiters;
+        }
+    }
+
+    /**
+     * Handles the single HTTP response for all waiters of a request
+     */
+    private class ResponseHandler<T> implements Callback {
+        private final InFlight<T> request;
+        private final String apiKey;
+
+        ResponseHandler(InFlight<T> request, String apiKey) {
+            this.request = request;
+            this.apiKey = apiKey;
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            Log.e(TAG, "Failed to fetch " + request.key, e);
+            completeWithError(request, "Network error: " + e.getMessage());
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) throws IOException {
+            // Closing the body on every path returns the connection to the shared pool
+            try (ResponseBody body = response.body()) {
+                if (response.code() == 429) {
+                    budget.reportRateLimited(apiKey);
+                }
+                if (!response.isSuccessful() || body == null) {
+                    Log.e(TAG, "Unsuccessful response: " + response.code());
+                    completeWithError(request, "HTTP error: " + response.code());
+                    return;
+                }
+
+                T result;
+                try {
+                    result = request.parser.parse(body.string());
+                } catch (InvalidResponseException e) {
+                    Log.w(TAG, e.getMessage());
+                    completeWithError(request, e.getMessage());
+                    return;
+                } catch (Exception e) {
+                    Log.e(TAG, "Error parsing " + request.key, e);
+                    completeWithError(request, "Parsing error: " + e.getMessage());
+                    return;
+                }
+                completeWithResult(request, result);
+            }
+        }
+    }
+
+    /**
+     * A queued or in-flight request and everyone waiting on it. Guarded by the lock.
+     */
+    private static class InFlight<T> {
+        final String key;
+        final ResponseParser<T> parser;
+        final List<Waiter<T>> waiters = new ArrayList<>();
+        Priority priority;
+        Call call;
+        boolean sent;
+        boolean cancelled;
+
+        InFlight(String key, Priority priority, ResponseParser<T> parser) {
+            this.key = key;
+            this.priority = priority;
+            this.parser = parser;
+        }
+
+        void removeWaiters(Object owner) {
+            Iterator<Waiter<T>> iterator = waiters.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().owner == owner) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static class Waiter<T> {
+        final Object owner;
+        final Consumer<T> onSuccess;
+        final Consumer<String> onError;
+
+        Waiter(Object owner, Consumer<T> onSuccess, Consumer<String> onError) {
+            this.owner = owner;
+            this.onSuccess = onSuccess;
+            this.onError = onError;
+        }
+    }
+}
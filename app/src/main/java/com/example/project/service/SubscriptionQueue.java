@@ -6,8 +6,9 @@ import android.util.Log;
 
 import java.util.LinkedList;
 import java.util.Queue;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Queue manager for WebSocket subscription requests
@@ -18,7 +19,7 @@ public class SubscriptionQueue {
 
     private final Queue<SubscriptionRequest> pendingRequests;
     private final FinnhubRateLimiter rateLimiter;
-    private final ExecutorService executorService;
+    private final ScheduledExecutorService executorService;
     private final Handler mainHandler;
     private boolean isProcessing = false;
     private final Object lock = new Object();
@@ -33,7 +34,7 @@ public class SubscriptionQueue {
     public SubscriptionQueue(FinnhubRateLimiter rateLimiter) {
         this.pendingRequests = new LinkedList<>();
         this.rateLimiter = rateLimiter;
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = Executors.newSingleThreadScheduledExecutor();
         this.mainHandler = new Handler(Looper.getMainLooper());
     }
 
@@ -76,54 +77,63 @@ public class SubscriptionQueue {
             isProcessing = true;
         }
 
-        executorService.execute(this::processQueue);
+        processNext();
     }
 
     /**
-     * Processes requests from the queue with rate limiting
+     * Takes the next request and schedules it for when the rate limiter grants its
+     * permit. Requests stay in order and no thread sleeps while waiting.
      */
-    private void processQueue() {
-        while (true) {
-            SubscriptionRequest request;
+    private void processNext() {
+        SubscriptionRequest request;
 
+        synchronized (lock) {
+            request = pendingRequests.poll();
+            if (request == null) {
+                isProcessing = false;
+                Log.d(TAG, "Queue empty, stopping processing");
+                return;
+            }
+        }
+
+        try {
+            rateLimiter.acquire(executorService, () -> {
+                process(request);
+                processNext();
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Queue shut down, dropping request for " + request.symbol);
             synchronized (lock) {
-                request = pendingRequests.poll();
-                if (request == null) {
-                    isProcessing = false;
-                    Log.d(TAG, "Queue empty, stopping processing");
-                    return;
-                }
+                isProcessing = false;
             }
+        }
+    }
 
-            try {
-                // Acquire rate limit permission (blocks if necessary)
-                if (!rateLimiter.acquire()) {
-                    Log.w(TAG, "Rate limiter interrupted, skipping request");
-                    notifyCallback(request.symbol, request.isSubscribe, false);
-                    continue;
-                }
-
-                // Notify about rate limiting if there are pending requests
-                int pendingCount = getPendingCount();
-                if (pendingCount > 0 && callback != null) {
-                    mainHandler.post(() ->
-                        callback.onRateLimitApplied(pendingCount));
-                }
-
-                // Execute the actual subscription/unsubscription
-                boolean success = request.executor.execute(request.symbol, request.isSubscribe);
-
-                Log.d(TAG, String.format("%s %s %s",
-                    request.isSubscribe ? "Subscribed to" : "Unsubscribed from",
-                    request.symbol,
-                    success ? "successfully" : "with failure"));
-
-                notifyCallback(request.symbol, request.isSubscribe, success);
-
-            } catch (Exception e) {
-                Log.e(TAG, "Error processing subscription request", e);
-                notifyCallback(request.symbol, request.isSubscribe, false);
+    /**
+     * Sends one request once its rate limit permit is usable
+     */
+    private void process(SubscriptionRequest request) {
+        try {
+            // Notify about rate limiting if there are pending requests
+            int pendingCount = getPendingCount();
+            if (pendingCount > 0 && callback != null) {
+                mainHandler.post(() ->
+                    callback.onRateLimitApplied(pendingCount));
             }
+
+            // Execute the actual subscription/unsubscription
+            boolean success = request.executor.execute(request.symbol, request.isSubscribe);
+
+            Log.d(TAG, String.format("%s %s %s",
+                request.isSubscribe ? "Subscribed to" : "Unsubscribed from",
+                request.symbol,
+                success ? "successfully" : "with failure"));
+
+            notifyCallback(request.symbol, request.isSubscribe, success);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error processing subscription request", e);
+            notifyCallback(request.symbol, request.isSubscribe, false);
         }
     }
 
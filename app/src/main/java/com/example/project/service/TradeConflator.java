@@ -0,0 +1,183 @@
+package com.example.project.service;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Conflation stage between the WebSocket trade feed and the UI.
+ * Every trade replaces a per-symbol slot's snapshot (latest price, streamed volume,
+ * timestamp), and the main thread drains only the slots that changed at a bounded
+ * publish rate.
+ * Main-thread work is therefore O(changed symbols) per publish, no matter how many
+ * trades arrive in between.
+ */
+public class TradeConflator {
+    public static final int DEFAULT_PUBLISH_RATE_HZ = 10;
+
+    /**
+     * Receives conflated trades on the main thread.
+     */
+    public interface ConflatedTradeListener {
+        /**
+         * @param streamedVolume Volume of the trades received for the symbol since it was
+         *                       last subscribed; starts over after a reconnect, so it is
+         *                       not the session volume
+         */
+        void onConflatedTrade(String symbol, double price, double streamedVolume, long timestamp);
+        void onConflationBatchComplete();
+    }
+
+    private final Map<String, Slot> slots;
+    private final Queue<Slot> dirtySlots;
+    private final AtomicBoolean publishScheduled;
+    private final Handler mainHandler;
+    private final Runnable publishRunnable;
+
+    private volatile long publishIntervalMs;
+    private long lastPublishTime = 0; // main thread only
+    private ConflatedTradeListener listener;
+
+    public TradeConflator() {
+        this(DEFAULT_PUBLISH_RATE_HZ);
+    }
+
+    public TradeConflator(int publishRateHz) {
+        this.slots = new ConcurrentHashMap<>();
+        this.dirtySlots = new ConcurrentLinkedQueue<>();
+        this.publishScheduled = new AtomicBoolean(false);
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.publishRunnable = this::publish;
+        setPublishRate(publishRateHz);
+    }
+
+    public void setListener(ConflatedTradeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets how many merged snapshots may be published per second.
+     */
+    public void setPublishRate(int publishRateHz) {
+        if (publishRateHz <= 0) {
+            throw new IllegalArgumentException("Publish rate must be positive: " + publishRateHz);
+        }
+        this.publishIntervalMs = 1000L / publishRateHz;
+    }
+
+    /**
+     * Records a trade. Called from the WebSocket reader thread; never blocks.
+     */
+    public void onTrade(String symbol, double price, double volume, long timestamp) {
+        Slot slot = slots.get(symbol);
+        if (slot == null) {
+            slot = slots.computeIfAbsent(symbol, Slot::new);
+        }
+
+        slot.record(price, volume, timestamp);
+
+        // Only the first trade since the last drain queues the slot
+        if (slot.dirty.compareAndSet(false, true)) {
+            dirtySlots.offer(slot);
+        }
+        schedulePublish();
+    }
+
+    /**
+     * Drops the slot for a symbol that is no longer tracked.
+     */
+    public void remove(String symbol) {
+        Slot slot = slots.remove(symbol);
+        if (slot != null) {
+            slot.removed = true;
+        }
+    }
+
+    /**
+     * Drops all slots and any pending publish.
+     */
+    public void clear() {
+        for (Slot slot : slots.values()) {
+            slot.removed = true;
+        }
+        slots.clear();
+        dirtySlots.clear();
+        mainHandler.removeCallbacks(publishRunnable);
+        publishScheduled.set(false);
+    }
+
+    private void schedulePublish() {
+        if (!publishScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        long delay = lastPublishTime + publishIntervalMs - SystemClock.uptimeMillis();
+        if (delay > 0) {
+            mainHandler.postDelayed(publishRunnable, delay);
+        } else {
+            mainHandler.post(publishRunnable);
+        }
+    }
+
+    private void publish() {
+        // Clear the flag first so trades arriving during the drain schedule the next publish
+        publishScheduled.set(false);
+        lastPublishTime = SystemClock.uptimeMillis();
+
+        ConflatedTradeListener currentListener = listener;
+        int published = 0;
+        Slot slot;
+        while ((slot = dirtySlots.poll()) != null) {
+            // Reset before reading so a concurrent write re-queues the slot
+            slot.dirty.set(false);
+            if (slot.removed || currentListener == null) {
+                continue;
+            }
+            TradeSnapshot snapshot = slot.latest;
+            currentListener.onConflatedTrade(slot.symbol, snapshot.price, snapshot.streamedVolume, snapshot.timestamp);
+            published++;
+        }
+
+        if (published > 0) {
+            currentListener.onConflationBatchComplete();
+        }
+    }
+
+    /**
+     * Latest trade state of one symbol. Written only by the socket reader thread, read by
+     * the main thread; each trade swaps in a whole snapshot, so a reader never sees the
+     * price of one trade with the timestamp of another.
+     */
+    private static class Slot {
+        final String symbol;
+        final AtomicBoolean dirty = new AtomicBoolean(false);
+        volatile TradeSnapshot latest = new TradeSnapshot(0, 0, 0);
+        volatile boolean removed;
+
+        Slot(String symbol) {
+            this.symbol = symbol;
+        }
+
+        void record(double price, double volume, long timestamp) {
+            latest = new TradeSnapshot(price, latest.streamedVolume + volume, timestamp);
+        }
+    }
+
+    private static final class TradeSnapshot {
+        final double price;
+        final double streamedVolume;
+        final long timestamp;
+
+        TradeSnapshot(double price, double streamedVolume, long timestamp) {
+            this.price = price;
+            this.streamedVolume = streamedVolume;
+            this.timestamp = timestamp;
+        }
+    }
+}
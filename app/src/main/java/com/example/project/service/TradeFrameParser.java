@@ -0,0 +1,477 @@
+package com.example.project.service;
+
+import java.nio.charset.StandardCharsets;
+
+import okio.ByteString;
+
+/**
+ * Hand-rolled parser for Finnhub WebSocket trade frames:
+ * {"data":[{"p":price,"s":"symbol","t":timestamp,"v":volume}],"type":"trade"}
+ *
+ * Frames are decoded into reusable primitive buffers and symbols are interned, so after
+ * warm-up a frame is parsed without allocating. Instances are not thread-safe; the
+ * WebSocket delivers frames on a single reader thread.
+ */
+public class TradeFrameParser {
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int INITIAL_TRADE_CAPACITY = 16;
+    private static final byte[] KEY_TYPE = {'t', 'y', 'p', 'e'};
+    private static final byte[] KEY_DATA = {'d', 'a', 't', 'a'};
+    private static final byte[] TYPE_TRADE = {'t', 'r', 'a', 'd', 'e'};
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private final SymbolTable symbolTable = new SymbolTable();
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int length;
+    private int position;
+    private int stringEnd;
+
+    private int tradeCount;
+    private String[] symbols = new String[INITIAL_TRADE_CAPACITY];
+    private double[] prices = new double[INITIAL_TRADE_CAPACITY];
+    private double[] volumes = new double[INITIAL_TRADE_CAPACITY];
+    private long[] timestamps = new long[INITIAL_TRADE_CAPACITY];
+
+    /**
+     * Parses a binary frame without decoding it to a String first.
+     *
+     * @return true if the frame is a trade message with at least one trade
+     */
+    public boolean parse(ByteString frame) {
+        int size = frame.size();
+        ensureBufferCapacity(size);
+        frame.copyInto(0, buffer, 0, size);
+        length = size;
+        return parseBuffer();
+    }
+
+    /**
+     * Parses a text frame. Only ASCII is significant in the trade format, so chars are
+     * narrowed into the reusable byte buffer instead of being re-encoded.
+     *
+     * @return true if the frame is a trade message with at least one trade
+     */
+    public boolean parse(String frame) {
+        int size = frame.length();
+        ensureBufferCapacity(size);
+        for (int i = 0; i < size; i++) {
+            buffer[i] = (byte) frame.charAt(i);
+        }
+        length = size;
+        return parseBuffer();
+    }
+
+    public int getTradeCount() {
+        return tradeCount;
+    }
+
+    public String getSymbol(int index) {
+        return symbols[index];
+    }
+
+    public double getPrice(int index) {
+        return prices[index];
+    }
+
+    public double getVolume(int index) {
+        return volumes[index];
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    private boolean parseBuffer() {
+        position = 0;
+        tradeCount = 0;
+        boolean isTrade = false;
+
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            return false;
+        }
+
+        while (true) {
+            skipWhitespace();
+            int keyStart = readString();
+            int keyLength = stringEnd - keyStart;
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            if (regionEquals(keyStart, keyLength, KEY_TYPE)) {
+                int valueStart = readString();
+                isTrade = regionEquals(valueStart, stringEnd - valueStart, TYPE_TRADE);
+            } else if (regionEquals(keyStart, keyLength, KEY_DATA) && peek() == '[') {
+                parseTradeArray();
+            } else {
+                skipValue();
+            }
+
+            skipWhitespace();
+            byte c = next();
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw malformed("Expected ',' or '}'");
+            }
+        }
+
+        // "ping" and other message types carry no trades
+        if (!isTrade) {
+            tradeCount = 0;
+        }
+        return tradeCount > 0;
+    }
+
+    private void parseTradeArray() {
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return;
+        }
+
+        while (true) {
+            skipWhitespace();
+            parseTrade();
+            skipWhitespace();
+            byte c = next();
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw malformed("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private void parseTrade() {
+        ensureTradeCapacity(tradeCount + 1);
+        int index = tradeCount;
+        symbols[index] = null;
+        prices[index] = 0;
+        volumes[index] = 0;
+        timestamps[index] = 0;
+
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            tradeCount++;
+            return;
+        }
+
+        while (true) {
+            skipWhitespace();
+            int keyStart = readString();
+            int keyLength = stringEnd - keyStart;
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            byte key = keyLength == 1 ? buffer[keyStart] : 0;
+            if (key == 'p') {
+                prices[index] = readNumber();
+            } else if (key == 's' && peek() == '"') {
+                int valueStart = readString();
+                symbols[index] = symbolTable.intern(buffer, valueStart, stringEnd - valueStart);
+            } else if (key == 't') {
+                timestamps[index] = (long) readNumber();
+            } else if (key == 'v') {
+                volumes[index] = readNumber();
+            } else {
+                // Trade conditions ("c") and anything added later
+                skipValue();
+            }
+
+            skipWhitespace();
+            byte c = next();
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw malformed("Expected ',' or '}' in trade");
+            }
+        }
+        tradeCount++;
+    }
+
+    /**
+     * Reads a string and returns the index of its first character; {@link #stringEnd}
+     * is set to the index of the closing quote.
+     */
+    private int readString() {
+        expect('"');
+        int start = position;
+        while (position < length) {
+            byte c = buffer[position];
+            if (c == '\\') {
+                position += 2;
+            } else if (c == '"') {
+                stringEnd = position;
+                position++;
+                return start;
+            } else {
+                position++;
+            }
+        }
+        throw malformed("Unterminated string");
+    }
+
+    /**
+     * Parses a JSON number. Up to 18 significant digits are accumulated in a long and
+     * scaled by an exact power of ten; anything longer falls back to Double.parseDouble.
+     */
+    private double readNumber() {
+        int start = position;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            position++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        boolean overflow = false;
+
+        while (position < length) {
+            byte c = buffer[position];
+            if (c >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (inFraction) {
+                        fractionDigits++;
+                    }
+                } else if (!inFraction) {
+                    overflow = true;
+                }
+                position++;
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+                position++;
+            } else if (c == 'e' || c == 'E' || c == '+' || c == '-') {
+                overflow = true;
+                position++;
+            } else {
+                break;
+            }
+        }
+
+        if (position == start) {
+            throw malformed("Expected number");
+        }
+
+        if (overflow || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(new String(buffer, start, position - start, StandardCharsets.ISO_8859_1));
+        }
+
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private void skipValue() {
+        byte c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            while (position < length) {
+                c = buffer[position];
+                if (c == '"') {
+                    readString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        position++;
+                        return;
+                    }
+                }
+                position++;
+            }
+            throw malformed("Unterminated value");
+        } else {
+            // Number or literal (true/false/null)
+            while (position < length) {
+                c = buffer[position];
+                if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                    return;
+                }
+                position++;
+            }
+        }
+    }
+
+    private boolean regionEquals(int start, int regionLength, byte[] expected) {
+        if (regionLength != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < regionLength; i++) {
+            if (buffer[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (position < length && isWhitespace(buffer[position])) {
+            position++;
+        }
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private byte peek() {
+        if (position >= length) {
+            throw malformed("Unexpected end of frame");
+        }
+        return buffer[position];
+    }
+
+    private byte next() {
+        byte c = peek();
+        position++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw malformed("Expected '" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException(reason + " at offset " + position);
+    }
+
+    private void ensureBufferCapacity(int size) {
+        if (buffer.length < size) {
+            buffer = new byte[Math.max(size, buffer.length * 2)];
+        }
+    }
+
+    private void ensureTradeCapacity(int size) {
+        if (prices.length >= size) {
+            return;
+        }
+        int capacity = Math.max(size, prices.length * 2);
+        String[] newSymbols = new String[capacity];
+        double[] newPrices = new double[capacity];
+        double[] newVolumes = new double[capacity];
+        long[] newTimestamps = new long[capacity];
+        System.arraycopy(symbols, 0, newSymbols, 0, tradeCount);
+        System.arraycopy(prices, 0, newPrices, 0, tradeCount);
+        System.arraycopy(volumes, 0, newVolumes, 0, tradeCount);
+        System.arraycopy(timestamps, 0, newTimestamps, 0, tradeCount);
+        symbols = newSymbols;
+        prices = newPrices;
+        volumes = newVolumes;
+        timestamps = newTimestamps;
+    }
+
+    /**
+     * Open-addressing table that maps symbol bytes to a canonical String, so repeated
+     * symbols never allocate and downstream map lookups hit the cached String hash.
+     */
+    private static class SymbolTable {
+        private static final int INITIAL_CAPACITY = 64;
+        private static final int MAX_ENTRIES = 4096;
+
+        private String[] entries = new String[INITIAL_CAPACITY];
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private int size;
+
+        String intern(byte[] bytes, int offset, int count) {
+            int hash = hash(bytes, offset, count);
+            int mask = entries.length - 1;
+            int index = hash & mask;
+
+            while (true) {
+                String entry = entries[index];
+                if (entry == null) {
+                    break;
+                }
+                if (hashes[index] == hash && matches(entry, bytes, offset, count)) {
+                    return entry;
+                }
+                index = (index + 1) & mask;
+            }
+
+            String symbol = new String(bytes, offset, count, StandardCharsets.ISO_8859_1);
+            if (size >= MAX_ENTRIES) {
+                // Only subscribed symbols should ever show up; don't grow without bound
+                entries = new String[INITIAL_CAPACITY];
+                hashes = new int[INITIAL_CAPACITY];
+                size = 0;
+            } else if ((size + 1) * 2 > entries.length) {
+                grow();
+            }
+            insert(symbol, hash);
+            return symbol;
+        }
+
+        private void insert(String symbol, int hash) {
+            int mask = entries.length - 1;
+            int index = hash & mask;
+            while (entries[index] != null) {
+                index = (index + 1) & mask;
+            }
+            entries[index] = symbol;
+            hashes[index] = hash;
+            size++;
+        }
+
+        private void grow() {
+            String[] oldEntries = entries;
+            int[] oldHashes = hashes;
+            entries = new String[oldEntries.length * 2];
+            hashes = new int[oldEntries.length * 2];
+            size = 0;
+            for (int i = 0; i < oldEntries.length; i++) {
+                if (oldEntries[i] != null) {
+                    insert(oldEntries[i], oldHashes[i]);
+                }
+            }
+        }
+
+        private static int hash(byte[] bytes, int offset, int count) {
+            int h = 0;
+            for (int i = 0; i < count; i++) {
+                h = 31 * h + (bytes[offset + i] & 0xFF);
+            }
+            // Spread the bits so short symbols don't cluster in the low slots
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean matches(String entry, byte[] bytes, int offset, int count) {
+            if (entry.length() != count) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (entry.charAt(i) != (char) (bytes[offset + i] & 0xFF)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
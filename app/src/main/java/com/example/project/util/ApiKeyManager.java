@@ -3,6 +3,7 @@ package com.example.project.util;
 import com.example.project.BuildConfig;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -58,6 +59,13 @@ public class ApiKeyManager {
         return apiKeys.get(index);
     }
 
+    /**
+     * API keys ทั้งหมด (อ่านอย่างเดียว) สำหรับนับโควตาแยกตาม key
+     */
+    public List<String> getApiKeys() {
+        return Collections.unmodifiableList(apiKeys);
+    }
+
     /**
      * จำนวน API keys ที่มี
      */
@@ -0,0 +1,49 @@
+package com.example.project.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide executors for work that must stay off the main thread.
+ * Repositories load their stored state on {@link #diskIO()} and hand the result back
+ * through {@link #mainThread()}, so cold start never waits on disk or JSON parsing.
+ */
+public class AppExecutors {
+
+    private static AppExecutors instance;
+
+    private final ExecutorService diskIO;
+    private final Executor mainThread;
+
+    private AppExecutors() {
+        this.diskIO = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "app-disk-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        this.mainThread = mainHandler::post;
+    }
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * Single background thread for SharedPreferences and file access; tasks run in order.
+     */
+    public ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+}
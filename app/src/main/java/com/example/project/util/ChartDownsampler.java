@@ -0,0 +1,115 @@
+package com.example.project.util;
+
+import com.example.project.model.CandleSeries;
+import com.github.mikephil.charting.data.Entry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling for chart series.
+ * Reduces a series to a target number of points (roughly the chart's pixel width)
+ * while keeping the visually significant peaks and troughs, so long timeframes
+ * render and drag as smoothly as short ones.
+ */
+public class ChartDownsampler {
+
+    /**
+     * Picks the close-price indices to draw for a candle series, using the candle
+     * index as x.
+     *
+     * @param candles   The candle series
+     * @param threshold Maximum number of points to keep
+     * @return Selected indices in ascending order
+     */
+    public static int[] selectIndices(CandleSeries candles, int threshold) {
+        return lttb(candles.size(), threshold, i -> i, candles::getClose);
+    }
+
+    /**
+     * Downsamples a list of chart entries.
+     *
+     * @param entries   Entries sorted by x
+     * @param threshold Maximum number of points to keep
+     * @return The kept entries, or the original list if it is already small enough
+     */
+    public static List<Entry> downsample(List<Entry> entries, int threshold) {
+        if (entries == null || entries.size() <= threshold || threshold < 3) {
+            return entries;
+        }
+
+        int[] indices = lttb(entries.size(), threshold,
+                i -> entries.get(i).getX(), i -> entries.get(i).getY());
+        List<Entry> sampled = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            sampled.add(entries.get(index));
+        }
+        return sampled;
+    }
+
+    /**
+     * Core LTTB selection. Always keeps the first and last point; every bucket in
+     * between contributes the point forming the largest triangle with the previously
+     * kept point and the average of the next bucket.
+     */
+    static int[] lttb(int size, int threshold, IntToDoubleFunction x, IntToDoubleFunction y) {
+        if (threshold >= size || threshold < 3) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        int count = 0;
+        selected[count++] = 0;
+
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int previous = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third triangle corner
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x.applyAsDouble(i);
+                avgY += y.applyAsDouble(i);
+            }
+            int nextCount = Math.max(nextEnd - nextStart, 1);
+            if (nextEnd <= nextStart) {
+                avgX = x.applyAsDouble(size - 1);
+                avgY = y.applyAsDouble(size - 1);
+            } else {
+                avgX /= nextCount;
+                avgY /= nextCount;
+            }
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double previousX = x.applyAsDouble(previous);
+            double previousY = y.applyAsDouble(previous);
+
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle area; the factor doesn't change the maximum
+                double area = Math.abs((previousX - avgX) * (y.applyAsDouble(i) - previousY)
+                        - (previousX - x.applyAsDouble(i)) * (avgY - previousY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+
+            selected[count++] = chosen;
+            previous = chosen;
+        }
+
+        selected[count] = size - 1;
+        return selected;
+    }
+}
@@ -9,6 +9,7 @@ import com.github.mikephil.charting.components.YAxis;
 import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.interfaces.datasets.ILineDataSet;
 
 import java.util.List;
 
@@ -22,6 +23,23 @@ public class ChartHelper {
     private static final float LINE_WIDTH = 2.5f;
     private static final int FILL_ALPHA = 30;
     private static final float X_AXIS_GRANULARITY = 1f;
+    private static final int MIN_TARGET_POINTS = 100;
+    private static final float OVERLAY_LINE_WIDTH = 1.2f;
+
+    /**
+     * Number of data points worth drawing on the chart: about one per horizontal pixel.
+     * Falls back to the screen width before the chart has been laid out.
+     *
+     * @param chart The LineChart the data is for
+     * @return Target point count for downsampling
+     */
+    public static int getTargetPointCount(LineChart chart) {
+        int width = chart.getWidth();
+        if (width <= 0) {
+            width = chart.getResources().getDisplayMetrics().widthPixels;
+        }
+        return Math.max(width, MIN_TARGET_POINTS);
+    }
 
     /**
      * Configures a LineChart with default stock chart styling.
@@ -93,7 +111,7 @@ public class ChartHelper {
             int color,
             Context context) {
 
-        LineDataSet dataSet = new LineDataSet(entries, label);
+        LineDataSet dataSet = new LiveLineDataSet(entries, label);
 
         // Line styling
         dataSet.setColor(color);
@@ -137,6 +155,122 @@ public class ChartHelper {
         chart.invalidate(); // Refresh the chart
     }
 
+    /**
+     * Moves the chart's last point to a new price, or appends a point after it, without
+     * rebuilding the data set. Only works on charts filled by {@link #updateChartData}.
+     * Does not redraw; call {@link #refreshLiveData} once overlays are updated too.
+     *
+     * @param chart         The LineChart to update
+     * @param x             X of the point; equal to the last x to update it, greater to append
+     * @param y             New price
+     * @param changePercent Stock change percentage (for color selection)
+     * @param context       Android context
+     * @return false if the chart has no live data set or x is before its last point
+     */
+    public static boolean appendOrUpdateLast(
+            LineChart chart,
+            float x,
+            float y,
+            double changePercent,
+            Context context) {
+
+        LineData lineData = chart.getData();
+        if (lineData == null || lineData.getDataSetCount() == 0
+                || !(lineData.getDataSetByIndex(0) instanceof LiveLineDataSet)) {
+            return false;
+        }
+
+        LiveLineDataSet dataSet = (LiveLineDataSet) lineData.getDataSetByIndex(0);
+        if (!dataSet.appendOrUpdateLast(x, y)) {
+            return false;
+        }
+
+        // The color flips when the change crosses zero
+        int color = StockColorHelper.getStockColor(context, changePercent);
+        dataSet.setColor(color);
+        dataSet.setFillColor(color);
+        return true;
+    }
+
+    /**
+     * Redraws a chart after {@link #appendOrUpdateLast} and {@link #appendOrUpdateOverlay}.
+     *
+     * @param chart The LineChart to redraw
+     */
+    public static void refreshLiveData(LineChart chart) {
+        LineData lineData = chart.getData();
+        if (lineData == null) {
+            return;
+        }
+        // Data set bounds are already current; these only fold them into the chart and axes
+        lineData.notifyDataChanged();
+        chart.notifyDataSetChanged();
+        chart.invalidate();
+    }
+
+    /**
+     * Creates a thin, unfilled LineDataSet for an indicator overlay.
+     *
+     * @param entries Overlay entries, with the same x values as the price entries
+     * @param label   Dataset label, used to find the overlay again
+     * @param color   Line color
+     * @return Configured LineDataSet
+     */
+    public static LineDataSet createOverlayDataSet(List<Entry> entries, String label, int color) {
+        LineDataSet dataSet = new LiveLineDataSet(entries, label);
+        dataSet.setColor(color);
+        dataSet.setLineWidth(OVERLAY_LINE_WIDTH);
+        dataSet.setDrawCircles(false);
+        dataSet.setDrawValues(false);
+        dataSet.setDrawFilled(false);
+        dataSet.setHighlightEnabled(false);
+        dataSet.setMode(LineDataSet.Mode.LINEAR);
+        return dataSet;
+    }
+
+    /**
+     * Adds an indicator overlay to a chart filled by {@link #updateChartData}, replacing
+     * an existing overlay with the same label.
+     *
+     * @param chart   The LineChart to update
+     * @param label   Overlay label
+     * @param entries Overlay entries; an empty list just removes the overlay
+     * @param color   Line color
+     */
+    public static void setOverlay(LineChart chart, String label, List<Entry> entries, int color) {
+        LineData lineData = chart.getData();
+        if (lineData == null) {
+            return;
+        }
+
+        ILineDataSet existing = lineData.getDataSetByLabel(label, false);
+        if (existing != null) {
+            lineData.removeDataSet(existing);
+        }
+        if (!entries.isEmpty()) {
+            lineData.addDataSet(createOverlayDataSet(entries, label, color));
+        }
+
+        chart.notifyDataSetChanged();
+        chart.invalidate();
+    }
+
+    /**
+     * Moves or appends the last point of an overlay, like {@link #appendOrUpdateLast} does
+     * for the price line. Does not redraw; call {@link #refreshLiveData} afterwards.
+     *
+     * @return false if the overlay doesn't exist or x is before its last point
+     */
+    public static boolean appendOrUpdateOverlay(LineChart chart, String label, float x, float y) {
+        LineData lineData = chart.getData();
+        if (lineData == null) {
+            return false;
+        }
+        ILineDataSet dataSet = lineData.getDataSetByLabel(label, false);
+        return dataSet instanceof LiveLineDataSet
+                && ((LiveLineDataSet) dataSet).appendOrUpdateLast(x, y);
+    }
+
     /**
      * Clears all data from the chart.
      *
@@ -0,0 +1,25 @@
+package com.example.project.util;
+
+import java.util.function.DoubleFunction;
+
+/**
+ * The last formatted text of one numeric field shown by a view. View holders outlive the
+ * lists submitted to their adapter and re-bind on every price tick, but most of their
+ * values have not changed since the previous bind, so the text is only rebuilt when the
+ * value differs. Not thread-safe; used from the thread that binds views.
+ */
+public class FormattedValue {
+    private double value;
+    private String text;
+
+    /**
+     * Text for the value, formatted only if the value changed since the last call
+     */
+    public String get(double newValue, DoubleFunction<String> formatter) {
+        if (text == null || Double.compare(newValue, value) != 0) {
+            value = newValue;
+            text = formatter.apply(newValue);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.project.util;
+
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineDataSet;
+
+import java.util.List;
+
+/**
+ * LineDataSet whose last entry can be updated or extended in O(1).
+ * The y-bounds of every entry except the last are kept separately, so moving the last
+ * value never needs the full rescan that {@link #notifyDataSetChanged()} would do.
+ */
+public class LiveLineDataSet extends LineDataSet {
+
+    // Bounds of all entries except the last one
+    private float prefixYMin;
+    private float prefixYMax;
+
+    public LiveLineDataSet(List<Entry> entries, String label) {
+        super(entries, label);
+    }
+
+    @Override
+    public void calcMinMax() {
+        super.calcMinMax();
+        recalculatePrefixBounds();
+    }
+
+    /**
+     * Sets the y of the last entry if it has the same x, or appends a new entry if x is
+     * past it.
+     *
+     * @return false if x is before the last entry and nothing was changed
+     */
+    public boolean appendOrUpdateLast(float x, float y) {
+        int count = getEntryCount();
+        if (count == 0) {
+            addEntry(new Entry(x, y));
+            recalculatePrefixBounds();
+            return true;
+        }
+
+        Entry last = getEntryForIndex(count - 1);
+        if (x == last.getX()) {
+            last.setY(y);
+        } else if (x > last.getX()) {
+            // The current last entry becomes part of the prefix
+            prefixYMin = Math.min(prefixYMin, last.getY());
+            prefixYMax = Math.max(prefixYMax, last.getY());
+            addEntry(new Entry(x, y));
+        } else {
+            return false;
+        }
+
+        mYMin = Math.min(prefixYMin, y);
+        mYMax = Math.max(prefixYMax, y);
+        mXMax = x;
+        return true;
+    }
+
+    private void recalculatePrefixBounds() {
+        prefixYMin = Float.MAX_VALUE;
+        prefixYMax = -Float.MAX_VALUE;
+        int prefixCount = getEntryCount() - 1;
+        for (int i = 0; i < prefixCount; i++) {
+            float y = getEntryForIndex(i).getY();
+            prefixYMin = Math.min(prefixYMin, y);
+            prefixYMax = Math.max(prefixYMax, y);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.project.util;
 
-import com.example.project.model.CandleData;
+import com.example.project.model.CandleSeries;
 import com.example.project.model.TimeFrame;
 import com.github.mikephil.charting.data.Entry;
 
@@ -17,34 +17,75 @@ public class PriceDataGenerator {
     private static final int DEFAULT_MOCK_DATA_POINTS = 50;
 
     /**
-     * Converts CandleData from Finnhub API to chart Entry list.
+     * Converts a CandleSeries from Finnhub API to chart Entry list.
      * Uses closing prices for the chart data points.
      *
-     * @param candleData The candle data from API
+     * @param candles The candle series from API
      * @return List of chart entries
      */
-    public static List<Entry> convertCandleDataToEntries(CandleData candleData) {
-        List<Entry> entries = new ArrayList<>();
+    public static List<Entry> convertCandleSeriesToEntries(CandleSeries candles) {
+        if (candles == null || !candles.isValid()) {
+            return new ArrayList<>();
+        }
 
-        if (candleData == null || !candleData.isValid()) {
-            return entries;
+        int size = candles.size();
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            double price = candles.getClose(i);
+            if (price > 0) {
+                entries.add(new Entry(i, (float) price));
+            }
         }
 
-        List<Double> closePrices = candleData.getClosePrices();
-        if (closePrices == null || closePrices.isEmpty()) {
-            return entries;
+        return entries;
+    }
+
+    /**
+     * Converts a CandleSeries to chart entries, first reducing it with LTTB to at most
+     * maxPoints closes. X values stay the original candle indices so spacing is kept.
+     *
+     * @param candles   The candle series from API
+     * @param maxPoints Maximum number of entries, typically the chart's pixel width
+     * @return List of chart entries
+     */
+    public static List<Entry> convertCandleSeriesToEntries(CandleSeries candles, int maxPoints) {
+        if (candles == null || !candles.isValid()) {
+            return new ArrayList<>();
+        }
+        if (candles.size() <= maxPoints) {
+            return convertCandleSeriesToEntries(candles);
         }
 
-        for (int i = 0; i < closePrices.size(); i++) {
-            Double price = closePrices.get(i);
-            if (price != null && price > 0) {
-                entries.add(new Entry(i, price.floatValue()));
+        int[] indices = ChartDownsampler.selectIndices(candles, maxPoints);
+        List<Entry> entries = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            double price = candles.getClose(index);
+            if (price > 0) {
+                entries.add(new Entry(index, (float) price));
             }
         }
 
         return entries;
     }
 
+    /**
+     * Converts per-candle indicator values to chart entries, skipping the NaN warm-up
+     * values and downsampling to at most maxPoints entries.
+     *
+     * @param values    One value per candle
+     * @param maxPoints Maximum number of entries, typically the chart's pixel width
+     * @return List of chart entries with the candle index as x
+     */
+    public static List<Entry> convertValuesToEntries(double[] values, int maxPoints) {
+        List<Entry> entries = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (!Double.isNaN(values[i])) {
+                entries.add(new Entry(i, (float) values[i]));
+            }
+        }
+        return ChartDownsampler.downsample(entries, maxPoints);
+    }
+
     /**
      * Generates mock historical price data for a given time frame.
      * The data is generated based on the current price and change percentage,
@@ -0,0 +1,153 @@
+package com.example.project.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Formats prices, percents and dates for display without {@link String#format}.
+ * Numbers are written as fixed-point digits into a per-thread {@link StringBuilder}, so
+ * the only allocation per call is the resulting String. Values are rounded half up to
+ * two decimals as they are written, so 1.005 becomes "1.01"; negative numbers keep their
+ * minus sign after any prefix ("$-1.50"), as the previous String.format patterns did.
+ * Signs and arrows follow the rounded value, so -0.001 is shown as zero, never as
+ * "-0.00".
+ */
+public class PriceFormatter {
+    private static final String DATE_TIME_PATTERN = "dd/MM/yyyy HH:mm";
+    // Scaled values from here on don't fit in a long
+    private static final double MAX_SCALED = Long.MAX_VALUE;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+    // SimpleDateFormat is not thread-safe, so each thread keeps its own
+    private static final ThreadLocal<SimpleDateFormat> DATE_TIME_FORMAT =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat(DATE_TIME_PATTERN, Locale.getDefault()));
+
+    /**
+     * @return e.g. "$12.34"
+     */
+    public static String formatPrice(double value) {
+        return format("", "$", value, 2, false, "");
+    }
+
+    /**
+     * @return e.g. "12.34"
+     */
+    public static String formatDecimal(double value) {
+        return format("", "", value, 2, false, "");
+    }
+
+    /**
+     * @return e.g. "+$12.34" or "$-12.34"
+     */
+    public static String formatSignedPrice(double value) {
+        return format("", "$", value, 2, true, "");
+    }
+
+    /**
+     * @return e.g. "+1.23%" or "-1.23%"
+     */
+    public static String formatSignedPercent(double value) {
+        return format("", "", value, 2, true, "%");
+    }
+
+    /**
+     * @return e.g. "↑ +2.34%" or "↓ -1.23%"
+     */
+    public static String formatChangeWithArrow(double changePercent) {
+        return format(isNegative(changePercent, 2) ? "↓ " : "↑ ", "", changePercent, 2, true, "%");
+    }
+
+    /**
+     * @return Whole share counts without decimals ("10"), fractional ones with two ("2.50")
+     */
+    public static String formatShares(double shares) {
+        return format("", "", shares, shares % 1 == 0 ? 0 : 2, false, "");
+    }
+
+    /**
+     * @return e.g. "17/10/2026 14:30"
+     */
+    public static String formatDateTime(long timestamp) {
+        return DATE_TIME_FORMAT.get().format(new Date(timestamp));
+    }
+
+    /**
+     * Writes lead, sign, prefix, number and suffix, e.g. "↑ " "+" "" "2.34" "%".
+     *
+     * @param plusSign Whether values >= 0 get a "+" between lead and prefix
+     */
+    private static String format(String lead, String prefix, double value, int decimals,
+                                 boolean plusSign, String suffix) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        sb.append(lead);
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return sb.append(prefix).append(value).append(suffix).toString();
+        }
+
+        boolean negative = isNegative(value, decimals);
+        if (plusSign && !negative) {
+            sb.append('+');
+        }
+        sb.append(prefix);
+        if (negative) {
+            sb.append('-');
+        }
+
+        long scale = scale(decimals);
+        if (Math.abs(value) * scale >= MAX_SCALED) {
+            sb.append(BigDecimal.valueOf(Math.abs(value)).setScale(decimals, RoundingMode.HALF_UP).toPlainString());
+            return sb.append(suffix).toString();
+        }
+        long scaled = round(Math.abs(value), decimals);
+
+        sb.append(scaled / scale);
+        if (decimals > 0) {
+            long fraction = scaled % scale;
+            sb.append('.');
+            if (fraction < 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+        return sb.append(suffix).toString();
+    }
+
+    /**
+     * Whether the value is still below zero once rounded to the given decimals, i.e.
+     * whether it is shown with a minus sign. Colors and arrows use this so they agree
+     * with the text.
+     *
+     * @param decimals 0 or 2, as shown
+     */
+    public static boolean isNegative(double value, int decimals) {
+        return value < 0 && round(-value, decimals) != 0;
+    }
+
+    /**
+     * The magnitude in hundredths (or units, for 0 decimals), rounded half up
+     */
+    private static long round(double magnitude, int decimals) {
+        double scaled = magnitude * scale(decimals);
+        if (scaled >= MAX_SCALED) {
+            return Long.MAX_VALUE;
+        }
+        // Close to a half, the multiplication's rounding error decides (1.005 * 100 is
+        // 100.49999999999999), so round the shortest decimal form of the value instead
+        if (Math.abs(scaled - Math.floor(scaled) - 0.5) <= 4 * Math.ulp(scaled)) {
+            return BigDecimal.valueOf(magnitude).setScale(decimals, RoundingMode.HALF_UP)
+                    .unscaledValue().longValue();
+        }
+        return Math.round(scaled);
+    }
+
+    private static long scale(int decimals) {
+        return decimals == 0 ? 1 : 100;
+    }
+}
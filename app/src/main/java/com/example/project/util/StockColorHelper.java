@@ -18,7 +18,7 @@ public class StockColorHelper {
      * @return Color resource ID (green for positive, red for negative)
      */
     public static int getStockColor(Context context, double changePercent) {
-        return changePercent >= 0
+        return isPositiveChange(changePercent)
                 ? context.getResources().getColor(R.color.positive_green, null)
                 : context.getResources().getColor(R.color.negative_red, null);
     }
@@ -30,7 +30,7 @@ public class StockColorHelper {
      * @return "↑" for positive change, "↓" for negative change
      */
     public static String getArrowSymbol(double changePercent) {
-        return changePercent >= 0 ? "↑" : "↓";
+        return isPositiveChange(changePercent) ? "↑" : "↓";
     }
 
     /**
@@ -40,18 +40,16 @@ public class StockColorHelper {
      * @return Formatted string like "↑ +2.34%" or "↓ -1.23%"
      */
     public static String formatChangePercent(double changePercent) {
-        String arrow = getArrowSymbol(changePercent);
-        String sign = changePercent >= 0 ? "+" : "";
-        return String.format("%s %s%.2f%%", arrow, sign, changePercent);
+        return PriceFormatter.formatChangeWithArrow(changePercent);
     }
 
     /**
      * Checks if the stock price change is positive.
      *
      * @param changePercent Stock price change percentage
-     * @return true if change is positive or zero, false otherwise
+     * @return true if change is positive or rounds to zero at two decimals, false otherwise
      */
     public static boolean isPositiveChange(double changePercent) {
-        return changePercent >= 0;
+        return !PriceFormatter.isNegative(changePercent, 2);
     }
 }
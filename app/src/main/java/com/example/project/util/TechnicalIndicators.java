@@ -0,0 +1,441 @@
+package com.example.project.util;
+
+import com.example.project.model.CandleSeries;
+
+/**
+ * Technical indicators that update incrementally.
+ * Every indicator consumes bars one at a time: {@link Indicator#addBar} appends a bar and
+ * {@link Indicator#updateLastBar} revises the bar in progress (a live tick). Both are O(1),
+ * so overlays on a live intraday chart never recompute their whole window. Values are NaN
+ * until the indicator has seen enough bars.
+ */
+public final class TechnicalIndicators {
+
+    private TechnicalIndicators() {
+    }
+
+    /**
+     * Runs an indicator over a candle series in a single pass.
+     *
+     * @return One array per output, each with one value per candle (NaN during warm-up)
+     */
+    public static double[][] compute(CandleSeries candles, Indicator indicator) {
+        int size = candles.size();
+        double[][] values = new double[indicator.getOutputCount()][size];
+        for (int i = 0; i < size; i++) {
+            indicator.addBar(candles.getTimestamp(i), candles.getHigh(i), candles.getLow(i),
+                    candles.getClose(i), candles.getVolume(i));
+            for (int output = 0; output < values.length; output++) {
+                values[output][i] = indicator.getValue(output);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Base class of all indicators; keeps the bar count.
+     */
+    public abstract static class Indicator {
+        private int barCount = 0;
+
+        /**
+         * Appends a closed or newly started bar.
+         */
+        public final void addBar(long timestamp, double high, double low, double close, double volume) {
+            barCount++;
+            onAddBar(timestamp, high, low, close, volume);
+        }
+
+        /**
+         * Replaces the values of the last bar, e.g. after a new trade in the bar in progress.
+         */
+        public final void updateLastBar(long timestamp, double high, double low, double close, double volume) {
+            if (barCount == 0) {
+                addBar(timestamp, high, low, close, volume);
+            } else {
+                onUpdateLastBar(timestamp, high, low, close, volume);
+            }
+        }
+
+        public int getBarCount() {
+            return barCount;
+        }
+
+        public double getValue() {
+            return getValue(0);
+        }
+
+        public boolean isReady() {
+            return !Double.isNaN(getValue());
+        }
+
+        public abstract int getOutputCount();
+
+        public abstract double getValue(int output);
+
+        protected abstract void onAddBar(long timestamp, double high, double low, double close, double volume);
+
+        protected abstract void onUpdateLastBar(long timestamp, double high, double low, double close, double volume);
+    }
+
+    /**
+     * Simple moving average of closes over a ring buffer with a running sum.
+     */
+    public static class Sma extends Indicator {
+        private final double[] window;
+        private double sum = 0;
+        private int count = 0;
+
+        public Sma(int period) {
+            if (period < 1) {
+                throw new IllegalArgumentException("Period must be positive: " + period);
+            }
+            this.window = new double[period];
+        }
+
+        @Override
+        public int getOutputCount() {
+            return 1;
+        }
+
+        @Override
+        public double getValue(int output) {
+            return count >= window.length ? sum / window.length : Double.NaN;
+        }
+
+        @Override
+        protected void onAddBar(long timestamp, double high, double low, double close, double volume) {
+            int slot = count % window.length;
+            if (count >= window.length) {
+                sum -= window[slot];
+            }
+            window[slot] = close;
+            sum += close;
+            count++;
+        }
+
+        @Override
+        protected void onUpdateLastBar(long timestamp, double high, double low, double close, double volume) {
+            int slot = (count - 1) % window.length;
+            sum += close - window[slot];
+            window[slot] = close;
+        }
+    }
+
+    /**
+     * Exponential moving average, seeded with the SMA of the first period values.
+     * Can also be fed arbitrary values, which MACD uses for its signal line.
+     */
+    public static class Ema extends Indicator {
+        private final int period;
+        private final double alpha;
+        private int count = 0;
+        private double value = Double.NaN;
+        // State before the last value, so the last value can be replaced
+        private double previousValue = Double.NaN;
+        private double seedSum = 0;
+        private double previousSeedSum = 0;
+
+        public Ema(int period) {
+            this.period = period;
+            this.alpha = 2.0 / (period + 1);
+        }
+
+        public void addValue(double input) {
+            previousValue = value;
+            previousSeedSum = seedSum;
+            count++;
+            apply(input);
+        }
+
+        public void updateLastValue(double input) {
+            if (count == 0) {
+                addValue(input);
+            } else {
+                apply(input);
+            }
+        }
+
+        private void apply(double input) {
+            if (count < period) {
+                seedSum = previousSeedSum + input;
+                value = Double.NaN;
+            } else if (count == period) {
+                seedSum = previousSeedSum + input;
+                value = seedSum / period;
+            } else {
+                value = previousValue + alpha * (input - previousValue);
+            }
+        }
+
+        @Override
+        public int getOutputCount() {
+            return 1;
+        }
+
+        @Override
+        public double getValue(int output) {
+            return value;
+        }
+
+        @Override
+        protected void onAddBar(long timestamp, double high, double low, double close, double volume) {
+            addValue(close);
+        }
+
+        @Override
+        protected void onUpdateLastBar(long timestamp, double high, double low, double close, double volume) {
+            updateLastValue(close);
+        }
+    }
+
+    /**
+     * Relative strength index with Wilder smoothing.
+     */
+    public static class Rsi extends Indicator {
+        private final int period;
+        private int count = 0;
+        private double value = Double.NaN;
+        private double lastClose;
+        private double averageGain = 0;
+        private double averageLoss = 0;
+        // State before the last bar, so the last bar can be replaced
+        private double baseClose;
+        private double baseAverageGain = 0;
+        private double baseAverageLoss = 0;
+
+        public Rsi(int period) {
+            this.period = period;
+        }
+
+        @Override
+        public int getOutputCount() {
+            return 1;
+        }
+
+        @Override
+        public double getValue(int output) {
+            return value;
+        }
+
+        @Override
+        protected void onAddBar(long timestamp, double high, double low, double close, double volume) {
+            baseClose = lastClose;
+            baseAverageGain = averageGain;
+            baseAverageLoss = averageLoss;
+            count++;
+            apply(close);
+        }
+
+        @Override
+        protected void onUpdateLastBar(long timestamp, double high, double low, double close, double volume) {
+            apply(close);
+        }
+
+        private void apply(double close) {
+            lastClose = close;
+            int changes = count - 1;
+            if (changes == 0) {
+                return;
+            }
+
+            double change = close - baseClose;
+            double gain = Math.max(change, 0);
+            double loss = Math.max(-change, 0);
+
+            if (changes < period) {
+                // Seed phase: accumulate sums
+                averageGain = baseAverageGain + gain;
+                averageLoss = baseAverageLoss + loss;
+                value = Double.NaN;
+                return;
+            }
+            if (changes == period) {
+                averageGain = (baseAverageGain + gain) / period;
+                averageLoss = (baseAverageLoss + loss) / period;
+            } else {
+                averageGain = (baseAverageGain * (period - 1) + gain) / period;
+                averageLoss = (baseAverageLoss * (period - 1) + loss) / period;
+            }
+            value = averageLoss == 0 ? 100 : 100 - 100 / (1 + averageGain / averageLoss);
+        }
+    }
+
+    /**
+     * MACD line (fast EMA - slow EMA), its signal EMA and the histogram.
+     */
+    public static class Macd extends Indicator {
+        public static final int LINE = 0;
+        public static final int SIGNAL = 1;
+        public static final int HISTOGRAM = 2;
+
+        private final Ema fast;
+        private final Ema slow;
+        private final Ema signal;
+        private boolean signalFedLastBar = false;
+
+        public Macd() {
+            this(12, 26, 9);
+        }
+
+        public Macd(int fastPeriod, int slowPeriod, int signalPeriod) {
+            this.fast = new Ema(fastPeriod);
+            this.slow = new Ema(slowPeriod);
+            this.signal = new Ema(signalPeriod);
+        }
+
+        @Override
+        public int getOutputCount() {
+            return 3;
+        }
+
+        @Override
+        public double getValue(int output) {
+            double line = fast.getValue() - slow.getValue();
+            switch (output) {
+                case LINE: return line;
+                case SIGNAL: return signal.getValue();
+                default: return line - signal.getValue();
+            }
+        }
+
+        @Override
+        protected void onAddBar(long timestamp, double high, double low, double close, double volume) {
+            fast.addValue(close);
+            slow.addValue(close);
+            double line = getValue(LINE);
+            signalFedLastBar = !Double.isNaN(line);
+            if (signalFedLastBar) {
+                signal.addValue(line);
+            }
+        }
+
+        @Override
+        protected void onUpdateLastBar(long timestamp, double high, double low, double close, double volume) {
+            fast.updateLastValue(close);
+            slow.updateLastValue(close);
+            if (signalFedLastBar) {
+                signal.updateLastValue(getValue(LINE));
+            }
+        }
+    }
+
+    /**
+     * Bollinger bands: SMA of closes plus/minus a multiple of their population standard
+     * deviation, from running sums of values and squares.
+     */
+    public static class BollingerBands extends Indicator {
+        public static final int MIDDLE = 0;
+        public static final int UPPER = 1;
+        public static final int LOWER = 2;
+
+        private final double[] window;
+        private final double width;
+        private double sum = 0;
+        private double sumOfSquares = 0;
+        private int count = 0;
+
+        public BollingerBands() {
+            this(20, 2.0);
+        }
+
+        public BollingerBands(int period, double width) {
+            if (period < 1) {
+                throw new IllegalArgumentException("Period must be positive: " + period);
+            }
+            this.window = new double[period];
+            this.width = width;
+        }
+
+        @Override
+        public int getOutputCount() {
+            return 3;
+        }
+
+        @Override
+        public double getValue(int output) {
+            if (count < window.length) {
+                return Double.NaN;
+            }
+            double mean = sum / window.length;
+            double variance = Math.max(sumOfSquares / window.length - mean * mean, 0);
+            double offset = width * Math.sqrt(variance);
+            switch (output) {
+                case UPPER: return mean + offset;
+                case LOWER: return mean - offset;
+                default: return mean;
+            }
+        }
+
+        @Override
+        protected void onAddBar(long timestamp, double high, double low, double close, double volume) {
+            int slot = count % window.length;
+            if (count >= window.length) {
+                sum -= window[slot];
+                sumOfSquares -= window[slot] * window[slot];
+            }
+            window[slot] = close;
+            sum += close;
+            sumOfSquares += close * close;
+            count++;
+        }
+
+        @Override
+        protected void onUpdateLastBar(long timestamp, double high, double low, double close, double volume) {
+            int slot = (count - 1) % window.length;
+            sum += close - window[slot];
+            sumOfSquares += close * close - window[slot] * window[slot];
+            window[slot] = close;
+        }
+    }
+
+    /**
+     * Volume-weighted average of the typical price, reset at each UTC day (outside US
+     * trading hours). Only meaningful on intraday bars.
+     */
+    public static class Vwap extends Indicator {
+        private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+        private long sessionDay = Long.MIN_VALUE;
+        private double priceVolume = 0;
+        private double totalVolume = 0;
+        // Session totals before the last bar, so the last bar can be replaced
+        private double basePriceVolume = 0;
+        private double baseVolume = 0;
+
+        @Override
+        public int getOutputCount() {
+            return 1;
+        }
+
+        @Override
+        public double getValue(int output) {
+            return totalVolume > 0 ? priceVolume / totalVolume : Double.NaN;
+        }
+
+        @Override
+        protected void onAddBar(long timestamp, double high, double low, double close, double volume) {
+            long day = Math.floorDiv(timestamp, SECONDS_PER_DAY);
+            if (day != sessionDay) {
+                sessionDay = day;
+                basePriceVolume = 0;
+                baseVolume = 0;
+            } else {
+                basePriceVolume = priceVolume;
+                baseVolume = totalVolume;
+            }
+            apply(high, low, close, volume);
+        }
+
+        @Override
+        protected void onUpdateLastBar(long timestamp, double high, double low, double close, double volume) {
+            apply(high, low, close, volume);
+        }
+
+        private void apply(double high, double low, double close, double volume) {
+            double typicalPrice = (high + low + close) / 3;
+            priceVolume = basePriceVolume + typicalPrice * volume;
+            totalVolume = baseVolume + volume;
+        }
+    }
+}
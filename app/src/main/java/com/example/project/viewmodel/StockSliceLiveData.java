@@ -0,0 +1,93 @@
+package com.example.project.viewmodel;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import com.example.project.model.Stock;
+import com.example.project.model.StockListUpdate;
+import com.example.project.model.SymbolGroup;
+
+import java.util.List;
+
+/**
+ * The stocks of one screen section (trending, watchlist, search results, ...), projected
+ * from the shared stock updates. The slice is recomputed only when an update touches one
+ * of its symbols or the symbols themselves change, and then costs one lookup per symbol
+ * of the section, no matter how many stocks are tracked or how long the screen is open.
+ */
+class StockSliceLiveData extends MediatorLiveData<List<Stock>> {
+    private final int limit;
+    private SymbolGroup symbols = SymbolGroup.empty();
+    // Null until the first update arrives
+    private StockListUpdate latestUpdate;
+    // Set while updates may have been missed, e.g. while nobody was observing
+    private boolean stale = true;
+
+    /**
+     * @param limit Maximum number of stocks in the slice
+     */
+    StockSliceLiveData(LiveData<StockListUpdate> updates, int limit) {
+        this.limit = limit;
+        addSource(updates, this::onUpdate);
+    }
+
+    /**
+     * Slice with a fixed set of symbols
+     */
+    static StockSliceLiveData of(LiveData<StockListUpdate> updates, List<String> symbols) {
+        StockSliceLiveData slice = new StockSliceLiveData(updates, Integer.MAX_VALUE);
+        slice.setSymbols(SymbolGroup.of(symbols));
+        return slice;
+    }
+
+    /**
+     * Slice whose symbols follow another LiveData, e.g. the watchlist
+     */
+    static StockSliceLiveData following(LiveData<StockListUpdate> updates,
+                                        LiveData<SymbolGroup> symbols, int limit) {
+        StockSliceLiveData slice = new StockSliceLiveData(updates, limit);
+        slice.addSource(symbols, slice::setSymbols);
+        return slice;
+    }
+
+    void setSymbols(SymbolGroup newSymbols) {
+        SymbolGroup next = newSymbols != null ? newSymbols : SymbolGroup.empty();
+        if (next.equals(symbols) && !stale) {
+            return;
+        }
+        symbols = next;
+        if (hasActiveObservers()) {
+            recompute();
+        } else {
+            stale = true;
+        }
+    }
+
+    @Override
+    protected void onActive() {
+        // Sources were detached while inactive, so the slice is rebuilt once they are back
+        stale = true;
+        super.onActive();
+        if (stale) {
+            recompute();
+        }
+    }
+
+    private void onUpdate(StockListUpdate update) {
+        if (update == null) {
+            return;
+        }
+        latestUpdate = update;
+        if (stale || update.affects(symbols)) {
+            recompute();
+        }
+    }
+
+    private void recompute() {
+        if (latestUpdate == null) {
+            return;
+        }
+        stale = false;
+        setValue(latestUpdate.select(symbols, limit));
+    }
+}
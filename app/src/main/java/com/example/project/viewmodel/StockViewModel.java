@@ -7,29 +7,86 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 
 import com.example.project.model.Stock;
+import com.example.project.model.StockListUpdate;
+import com.example.project.model.SymbolGroup;
 import com.example.project.repository.StockRepository;
+import com.example.project.repository.WatchlistRepository;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * ViewModel for managing stock data in the UI
  */
 public class StockViewModel extends AndroidViewModel {
+    // Predefined dashboard sections
+    public static final List<String> TRENDING_STOCKS = Arrays.asList("AAPL", "TSLA", "GOOGL", "MSFT");
+    public static final List<String> POPULAR_STOCKS = Arrays.asList("AMZN", "META", "NVDA", "NFLX");
+    private static final int WATCHLIST_PREVIEW_SIZE = 4;
+
     private final StockRepository repository;
     private final LiveData<List<Stock>> stockList;
+    private final LiveData<StockListUpdate> stockUpdates;
     private final LiveData<Boolean> connectionStatus;
 
+    // Section projections of stockUpdates, each recomputed only when its symbols move
+    private final StockSliceLiveData trendingStocks;
+    private final StockSliceLiveData popularStocks;
+    private final StockSliceLiveData watchlistPreview;
+    private final StockSliceLiveData searchResults;
+
     public StockViewModel(@NonNull Application application) {
         super(application);
         repository = StockRepository.getInstance(application);
         stockList = repository.getStockList();
+        stockUpdates = repository.getStockUpdates();
         connectionStatus = repository.getConnectionStatus();
+
+        trendingStocks = StockSliceLiveData.of(stockUpdates, TRENDING_STOCKS);
+        popularStocks = StockSliceLiveData.of(stockUpdates, POPULAR_STOCKS);
+        watchlistPreview = StockSliceLiveData.following(stockUpdates,
+                WatchlistRepository.getInstance(application).getWatchlistGroup(), WATCHLIST_PREVIEW_SIZE);
+        searchResults = new StockSliceLiveData(stockUpdates, Integer.MAX_VALUE);
     }
 
     public LiveData<List<Stock>> getStockList() {
         return stockList;
     }
 
+    /**
+     * Frame-batched updates with the symbols that changed, for screens that show only
+     * some of the stocks
+     */
+    public LiveData<StockListUpdate> getStockUpdates() {
+        return stockUpdates;
+    }
+
+    public LiveData<List<Stock>> getTrendingStocks() {
+        return trendingStocks;
+    }
+
+    public LiveData<List<Stock>> getPopularStocks() {
+        return popularStocks;
+    }
+
+    /**
+     * The first few watchlist stocks, following watchlist changes
+     */
+    public LiveData<List<Stock>> getWatchlistPreview() {
+        return watchlistPreview;
+    }
+
+    /**
+     * Stocks for the symbols last passed to {@link #setSearchSymbols}
+     */
+    public LiveData<List<Stock>> getSearchResults() {
+        return searchResults;
+    }
+
+    public void setSearchSymbols(List<String> symbols) {
+        searchResults.setSymbols(SymbolGroup.of(symbols));
+    }
+
     public LiveData<Boolean> getConnectionStatus() {
         return connectionStatus;
     }
@@ -0,0 +1,328 @@
+package com.example.project.repository;
+
+import com.example.project.model.PortfolioItem;
+import com.example.project.model.Transaction;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TransactionJournal} replay, snapshots and recovery.
+ */
+public class TransactionJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private File journalFile;
+    private FakeStore history;
+
+    @Before
+    public void setUp() {
+        directory = new File(folder.getRoot(), "portfolio");
+        journalFile = new File(directory, "journal.bin");
+        history = new FakeStore();
+    }
+
+    @Test
+    public void appendedRecords_areReplayedInOrder() throws Exception {
+        TransactionJournal journal = open(new RecordingListener());
+        journal.appendTransaction(transaction("a"));
+        journal.appendTransaction(transaction("b"));
+        journal.appendReset(1);
+        journal.appendTransaction(transaction("c"));
+        awaitWrites(journal);
+
+        RecordingListener replayed = new RecordingListener();
+        open(replayed);
+
+        assertNull(replayed.snapshot);
+        assertEquals(Arrays.asList("a", "b", "reset", "c"), replayed.events);
+        assertEquals(Collections.singletonList("c"), history.getIds());
+    }
+
+    @Test
+    public void tornLastRecord_isDroppedAndOverwritten() throws Exception {
+        TransactionJournal journal = open(new RecordingListener());
+        journal.appendTransaction(transaction("a"));
+        journal.appendTransaction(transaction("b"));
+        awaitWrites(journal);
+
+        // The app died halfway through writing "b"
+        truncate(journalFile, journalFile.length() - 3);
+
+        RecordingListener replayed = new RecordingListener();
+        TransactionJournal reopened = open(replayed);
+        assertEquals(Collections.singletonList("a"), replayed.events);
+
+        reopened.appendTransaction(transaction("c"));
+        awaitWrites(reopened);
+
+        RecordingListener again = new RecordingListener();
+        open(again);
+        assertEquals(Arrays.asList("a", "c"), again.events);
+    }
+
+    @Test
+    public void corruptLastRecord_isDropped() throws Exception {
+        TransactionJournal journal = open(new RecordingListener());
+        journal.appendTransaction(transaction("a"));
+        journal.appendTransaction(transaction("b"));
+        awaitWrites(journal);
+
+        // Flip a byte in the payload of "b", just before its checksum
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            long position = file.length() - 5;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+
+        RecordingListener replayed = new RecordingListener();
+        open(replayed);
+        assertEquals(Collections.singletonList("a"), replayed.events);
+    }
+
+    @Test
+    public void snapshot_compactsJournalAndReplaysOnlyLaterRecords() throws Exception {
+        TransactionJournal journal = open(new RecordingListener());
+        journal.appendTransaction(transaction("a"));
+        journal.appendTransaction(transaction("b"));
+        CountDownLatch durable = new CountDownLatch(1);
+        journal.writeSnapshot(snapshot(900), durable::countDown);
+        journal.appendTransaction(transaction("c"));
+        awaitWrites(journal);
+        assertEquals(0, durable.getCount());
+
+        RecordingListener replayed = new RecordingListener();
+        TransactionJournal reopened = open(replayed);
+
+        assertNotNull(replayed.snapshot);
+        assertEquals(900, replayed.snapshot.balance, 0);
+        assertEquals(1, replayed.snapshot.items.size());
+        assertEquals("AAPL", replayed.snapshot.items.get(0).getSymbol());
+        // "a" and "b" were compacted away; the history still has them
+        assertEquals(Collections.singletonList("c"), replayed.events);
+        assertEquals(Arrays.asList("a", "b", "c"), history.getIds());
+
+        // A second snapshot and compaction over the reopened journal
+        reopened.appendReset(2);
+        reopened.appendTransaction(transaction("d"));
+        reopened.writeSnapshot(snapshot(100), null);
+        awaitWrites(reopened);
+
+        RecordingListener again = new RecordingListener();
+        open(again);
+        assertEquals(100, again.snapshot.balance, 0);
+        assertTrue(again.events.isEmpty());
+        assertEquals(Collections.singletonList("d"), history.getIds());
+    }
+
+    @Test
+    public void snapshotPastJournalEnd_isReanchored() throws Exception {
+        writeSnapshotPastJournalEnd();
+
+        RecordingListener replayed = new RecordingListener();
+        TransactionJournal journal = open(replayed);
+        assertEquals(500, replayed.snapshot.balance, 0);
+        assertEquals(Collections.singletonList("a (covered)"), replayed.events);
+
+        journal.appendTransaction(transaction("c"));
+        awaitWrites(journal);
+
+        // Without re-anchoring, "c" would be written where "b" was and count as covered
+        RecordingListener again = new RecordingListener();
+        open(again);
+        assertEquals(Arrays.asList("a (covered)", "c"), again.events);
+    }
+
+    @Test
+    public void failedReanchor_holdsBackRecordsUntilRetried() throws Exception {
+        writeSnapshotPastJournalEnd();
+
+        // Snapshot writes fail while the temp file can't be created
+        File blocker = new File(directory, "snapshot.bin.tmp");
+        assertTrue(blocker.mkdir());
+
+        TransactionJournal journal = open(new RecordingListener());
+        journal.appendTransaction(transaction("c"));
+        awaitWrites(journal);
+        assertFalse(history.getIds().contains("c"));
+
+        assertTrue(blocker.delete());
+        journal.appendTransaction(transaction("d"));
+        awaitWrites(journal);
+        assertEquals(Arrays.asList("a", "b", "c", "d"), history.getIds());
+
+        RecordingListener replayed = new RecordingListener();
+        open(replayed);
+        assertEquals(Arrays.asList("a (covered)", "c", "d"), replayed.events);
+    }
+
+    @Test
+    public void failedWrite_isRetriedBeforeReachingHistory() throws Exception {
+        // A directory where the journal should be makes every write fail
+        assertTrue(journalFile.mkdirs());
+
+        TransactionJournal journal = open(new RecordingListener());
+        journal.appendTransaction(transaction("a"));
+        awaitWrites(journal);
+        assertTrue(history.getIds().isEmpty());
+
+        assertTrue(journalFile.delete());
+        journal.appendTransaction(transaction("b"));
+        awaitWrites(journal);
+        assertEquals(Arrays.asList("a", "b"), history.getIds());
+
+        RecordingListener replayed = new RecordingListener();
+        open(replayed);
+        assertEquals(Arrays.asList("a", "b"), replayed.events);
+    }
+
+    @Test
+    public void snapshotWithFailedWrites_storesThemInHistory() throws Exception {
+        assertTrue(journalFile.mkdirs());
+
+        TransactionJournal journal = open(new RecordingListener());
+        journal.appendTransaction(transaction("a"));
+        awaitWrites(journal);
+        assertTrue(history.getIds().isEmpty());
+
+        // The snapshot includes "a", so it is history now even though it was never journaled
+        journal.writeSnapshot(snapshot(700), null);
+        awaitWrites(journal);
+        assertEquals(Collections.singletonList("a"), history.getIds());
+
+        assertTrue(journalFile.delete());
+        RecordingListener replayed = new RecordingListener();
+        open(replayed);
+        assertEquals(700, replayed.snapshot.balance, 0);
+        assertTrue(replayed.events.isEmpty());
+    }
+
+    /**
+     * Leaves a snapshot covering "a" and "b" with only "a" left in the journal, as if the
+     * journal lost its tail after the snapshot was written
+     */
+    private void writeSnapshotPastJournalEnd() throws Exception {
+        TransactionJournal journal = open(new RecordingListener());
+        journal.appendTransaction(transaction("a"));
+        awaitWrites(journal);
+        byte[] withA = Files.readAllBytes(journalFile.toPath());
+
+        // A directory in place of the journal keeps the snapshot from compacting it
+        File moved = new File(directory, "moved.bin");
+        journal.appendTransaction(transaction("b"));
+        journal.runAfterPendingWrites(() -> {
+            if (journalFile.renameTo(moved)) {
+                journalFile.mkdir();
+            }
+        });
+        journal.writeSnapshot(snapshot(500), null);
+        awaitWrites(journal);
+        assertTrue(moved.length() > withA.length);
+
+        assertTrue(journalFile.delete());
+        assertTrue(moved.delete());
+        Files.write(journalFile.toPath(), withA);
+    }
+
+    private TransactionJournal open(TransactionJournal.ReplayListener listener) {
+        TransactionJournal journal = new TransactionJournal(directory, history);
+        journal.load(listener);
+        return journal;
+    }
+
+    private static void awaitWrites(TransactionJournal journal) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        journal.runAfterPendingWrites(done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private static Transaction transaction(String id) {
+        Transaction transaction = new Transaction("AAPL", Transaction.Type.BUY, 1, 100);
+        transaction.setId(id);
+        return transaction;
+    }
+
+    private static TransactionJournal.Snapshot snapshot(double balance) {
+        List<PortfolioItem> items = new ArrayList<>();
+        items.add(new PortfolioItem("AAPL", 10, 100));
+        return new TransactionJournal.Snapshot(balance, items);
+    }
+
+    /**
+     * Collects replayed records as their ids, marking those the snapshot already covers
+     */
+    private static class RecordingListener implements TransactionJournal.ReplayListener {
+        TransactionJournal.Snapshot snapshot;
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onSnapshot(TransactionJournal.Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public void onTransaction(Transaction transaction, boolean afterSnapshot) {
+            events.add(transaction.getId() + (afterSnapshot ? "" : " (covered)"));
+        }
+
+        @Override
+        public void onReset(boolean afterSnapshot) {
+            events.add(afterSnapshot ? "reset" : "reset (covered)");
+        }
+    }
+
+    /**
+     * In-memory history keeping transaction ids in insertion order
+     */
+    private static class FakeStore extends TransactionStore {
+        private final List<String> ids = new ArrayList<>();
+
+        FakeStore() {
+            super(null);
+        }
+
+        @Override
+        synchronized void insert(List<Transaction> transactions) {
+            for (Transaction transaction : transactions) {
+                if (!ids.contains(transaction.getId())) {
+                    ids.add(transaction.getId());
+                }
+            }
+        }
+
+        @Override
+        synchronized void clear() {
+            ids.clear();
+        }
+
+        synchronized List<String> getIds() {
+            return new ArrayList<>(ids);
+        }
+    }
+}
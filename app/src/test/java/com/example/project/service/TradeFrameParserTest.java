@@ -0,0 +1,204 @@
+package com.example.project.service;
+
+import org.junit.Test;
+
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TradeFrameParser}.
+ */
+public class TradeFrameParserTest {
+
+    private final TradeFrameParser parser = new TradeFrameParser();
+
+    @Test
+    public void singleTrade_isParsed() {
+        assertTrue(parser.parse("{\"data\":[{\"p\":189.52,\"s\":\"AAPL\",\"t\":1700000000123,\"v\":100}],\"type\":\"trade\"}"));
+
+        assertEquals(1, parser.getTradeCount());
+        assertEquals("AAPL", parser.getSymbol(0));
+        assertEquals(189.52, parser.getPrice(0), 0);
+        assertEquals(100, parser.getVolume(0), 0);
+        assertEquals(1700000000123L, parser.getTimestamp(0));
+    }
+
+    @Test
+    public void multiTradeFrame_readsEveryTrade() {
+        StringBuilder frame = new StringBuilder("{\"type\":\"trade\",\"data\":[");
+        for (int i = 0; i < 40; i++) {
+            if (i > 0) {
+                frame.append(',');
+            }
+            frame.append("{\"s\":\"SYM").append(i % 3).append("\",\"p\":").append(i).append(".5,\"t\":")
+                    .append(1000 + i).append(",\"v\":").append(i * 2).append('}');
+        }
+        frame.append("]}");
+
+        assertTrue(parser.parse(frame.toString()));
+
+        // More trades than the initial capacity
+        assertEquals(40, parser.getTradeCount());
+        for (int i = 0; i < 40; i++) {
+            assertEquals("SYM" + (i % 3), parser.getSymbol(i));
+            assertEquals(i + 0.5, parser.getPrice(i), 0);
+            assertEquals(1000 + i, parser.getTimestamp(i));
+            assertEquals(i * 2, parser.getVolume(i), 0);
+        }
+    }
+
+    @Test
+    public void repeatedSymbols_areInterned() {
+        parser.parse("{\"data\":[{\"p\":1,\"s\":\"MSFT\",\"t\":1,\"v\":1},{\"p\":2,\"s\":\"MSFT\",\"t\":2,\"v\":1}],\"type\":\"trade\"}");
+        String first = parser.getSymbol(0);
+        assertSame(first, parser.getSymbol(1));
+
+        parser.parse("{\"data\":[{\"p\":3,\"s\":\"MSFT\",\"t\":3,\"v\":1}],\"type\":\"trade\"}");
+        assertSame(first, parser.getSymbol(0));
+    }
+
+    @Test
+    public void binaryFrame_isParsed() {
+        assertTrue(parser.parse(ByteString.encodeUtf8(
+                "{\"data\":[{\"p\":42.1,\"s\":\"TSLA\",\"t\":5,\"v\":3}],\"type\":\"trade\"}")));
+
+        assertEquals(1, parser.getTradeCount());
+        assertEquals("TSLA", parser.getSymbol(0));
+        assertEquals(42.1, parser.getPrice(0), 0);
+    }
+
+    @Test
+    public void ping_hasNoTrades() {
+        assertFalse(parser.parse("{\"type\":\"ping\"}"));
+        assertEquals(0, parser.getTradeCount());
+    }
+
+    @Test
+    public void nonTradeTypeWithData_hasNoTrades() {
+        assertFalse(parser.parse("{\"data\":[{\"p\":1,\"s\":\"AAPL\",\"t\":1,\"v\":1}],\"type\":\"news\"}"));
+        assertEquals(0, parser.getTradeCount());
+
+        assertFalse(parser.parse("{\"type\":\"error\",\"msg\":\"Invalid symbol\"}"));
+        assertFalse(parser.parse("{}"));
+    }
+
+    @Test
+    public void emptyTradeArray_hasNoTrades() {
+        assertFalse(parser.parse("{\"data\":[],\"type\":\"trade\"}"));
+    }
+
+    @Test
+    public void whitespace_isIgnored() {
+        assertTrue(parser.parse(" {\n \"type\" : \"trade\" ,\r\n\t\"data\" : [ { \"p\" : 1.25 , \"s\" : \"AMZN\" , \"t\" : 7 , \"v\" : 2 } ] } "));
+        assertEquals("AMZN", parser.getSymbol(0));
+        assertEquals(1.25, parser.getPrice(0), 0);
+        assertEquals(7, parser.getTimestamp(0));
+    }
+
+    @Test
+    public void exponentNumbers_areParsed() {
+        assertTrue(parser.parse("{\"data\":[{\"p\":1.5e2,\"s\":\"A\",\"t\":1.7E12,\"v\":2.5E-3}],\"type\":\"trade\"}"));
+
+        assertEquals(150, parser.getPrice(0), 0);
+        assertEquals(1700000000000L, parser.getTimestamp(0));
+        assertEquals(0.0025, parser.getVolume(0), 1e-15);
+    }
+
+    @Test
+    public void negativeNumbers_areParsed() {
+        assertTrue(parser.parse("{\"data\":[{\"p\":-0.75,\"s\":\"A\",\"t\":3,\"v\":-12}],\"type\":\"trade\"}"));
+
+        assertEquals(-0.75, parser.getPrice(0), 0);
+        assertEquals(-12, parser.getVolume(0), 0);
+    }
+
+    @Test
+    public void numbers_matchDoubleParsing() {
+        String[] values = {"0", "0.1", "0.01", "189.52", "1234.5678", "0.000123", "99999.99",
+                "123456789012345678901", "3.14159265358979323846"};
+        for (String value : values) {
+            parser.parse("{\"data\":[{\"p\":" + value + ",\"s\":\"A\",\"t\":1,\"v\":1}],\"type\":\"trade\"}");
+            assertEquals(value, Double.parseDouble(value), parser.getPrice(0), Math.ulp(Double.parseDouble(value)));
+        }
+    }
+
+    @Test
+    public void unknownFields_areSkipped() {
+        assertTrue(parser.parse("{\"seq\":12,\"meta\":{\"a\":[1,{\"b\":\"}]\"}],\"ok\":true},"
+                + "\"data\":[{\"c\":[\"1\",\"12\"],\"p\":10,\"x\":null,\"s\":\"NVDA\",\"t\":9,\"v\":4,\"flag\":false}],"
+                + "\"type\":\"trade\",\"extra\":[]}"));
+
+        assertEquals(1, parser.getTradeCount());
+        assertEquals("NVDA", parser.getSymbol(0));
+        assertEquals(10, parser.getPrice(0), 0);
+        assertEquals(9, parser.getTimestamp(0));
+        assertEquals(4, parser.getVolume(0), 0);
+    }
+
+    @Test
+    public void escapedStrings_areSkipped() {
+        assertTrue(parser.parse("{\"note\":\"say \\\"hi\\\" \\\\ ok\",\"data\":[{\"c\":\"a\\\"}b\",\"p\":2,"
+                + "\"s\":\"META\",\"t\":1,\"v\":1}],\"type\":\"trade\"}"));
+
+        assertEquals(1, parser.getTradeCount());
+        assertEquals("META", parser.getSymbol(0));
+        assertEquals(2, parser.getPrice(0), 0);
+    }
+
+    @Test
+    public void previousFrame_doesNotLeak() {
+        parser.parse("{\"data\":[{\"p\":1,\"s\":\"A\",\"t\":1,\"v\":1},{\"p\":2,\"s\":\"B\",\"t\":2,\"v\":1}],\"type\":\"trade\"}");
+        parser.parse("{\"data\":[{\"s\":\"C\"}],\"type\":\"trade\"}");
+
+        assertEquals(1, parser.getTradeCount());
+        assertEquals("C", parser.getSymbol(0));
+        assertEquals(0, parser.getPrice(0), 0);
+        assertEquals(0, parser.getTimestamp(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyFrame_throws() {
+        parser.parse("");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notAnObject_throws() {
+        parser.parse("[1,2,3]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedFrame_throws() {
+        parser.parse("{\"data\":[{\"p\":1.5,\"s\":\"AAPL\"");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unterminatedString_throws() {
+        parser.parse("{\"type\":\"tra");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingColon_throws() {
+        parser.parse("{\"type\" \"trade\"}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingNumber_throws() {
+        parser.parse("{\"data\":[{\"p\":,\"s\":\"A\"}],\"type\":\"trade\"}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badNumber_throws() {
+        parser.parse("{\"data\":[{\"p\":1-2,\"s\":\"A\"}],\"type\":\"trade\"}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tradeNotAnObject_throws() {
+        parser.parse("{\"data\":[42],\"type\":\"trade\"}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingSeparator_throws() {
+        parser.parse("{\"data\":[{\"p\":1 \"s\":\"A\"}],\"type\":\"trade\"}");
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.project.util;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PriceFormatter}.
+ */
+public class PriceFormatterTest {
+
+    @Test
+    public void prices_haveTwoDecimals() {
+        assertEquals("$12.34", PriceFormatter.formatPrice(12.34));
+        assertEquals("$12.30", PriceFormatter.formatPrice(12.3));
+        assertEquals("$7.00", PriceFormatter.formatPrice(7));
+        assertEquals("$0.05", PriceFormatter.formatPrice(0.05));
+        assertEquals("$-1.50", PriceFormatter.formatPrice(-1.5));
+        assertEquals("12.34", PriceFormatter.formatDecimal(12.34));
+    }
+
+    @Test
+    public void signedValues_haveSignAfterLeadAndBeforeOrAfterPrefix() {
+        assertEquals("+$12.34", PriceFormatter.formatSignedPrice(12.34));
+        assertEquals("$-12.34", PriceFormatter.formatSignedPrice(-12.34));
+        assertEquals("+1.23%", PriceFormatter.formatSignedPercent(1.23));
+        assertEquals("-1.23%", PriceFormatter.formatSignedPercent(-1.23));
+        assertEquals("↑ +2.34%", PriceFormatter.formatChangeWithArrow(2.34));
+        assertEquals("↓ -1.23%", PriceFormatter.formatChangeWithArrow(-1.23));
+    }
+
+    @Test
+    public void valuesNearZero_roundToZeroWithoutMinus() {
+        assertEquals("$0.00", PriceFormatter.formatPrice(0));
+        assertEquals("$0.00", PriceFormatter.formatPrice(-0.0));
+        assertEquals("$0.00", PriceFormatter.formatPrice(0.004));
+        assertEquals("$0.00", PriceFormatter.formatPrice(-0.004));
+        assertEquals("$0.01", PriceFormatter.formatPrice(0.006));
+        assertEquals("$-0.01", PriceFormatter.formatPrice(-0.006));
+        assertEquals("+$0.00", PriceFormatter.formatSignedPrice(-0.004));
+        assertEquals("+0.00%", PriceFormatter.formatSignedPercent(-0.001));
+    }
+
+    @Test
+    public void arrow_followsRoundedValue() {
+        assertEquals("↑ +0.00%", PriceFormatter.formatChangeWithArrow(0));
+        assertEquals("↑ +0.00%", PriceFormatter.formatChangeWithArrow(-0.001));
+        assertEquals("↑ +0.00%", PriceFormatter.formatChangeWithArrow(-0.0049));
+        assertEquals("↓ -0.01%", PriceFormatter.formatChangeWithArrow(-0.006));
+        assertEquals("↑ +0.01%", PriceFormatter.formatChangeWithArrow(0.006));
+    }
+
+    @Test
+    public void isNegative_agreesWithShownSign() {
+        assertFalse(PriceFormatter.isNegative(0, 2));
+        assertFalse(PriceFormatter.isNegative(-0.001, 2));
+        assertFalse(PriceFormatter.isNegative(-0.0049, 2));
+        assertTrue(PriceFormatter.isNegative(-0.005, 2));
+        assertTrue(PriceFormatter.isNegative(-0.006, 2));
+        assertFalse(PriceFormatter.isNegative(-0.4, 0));
+        assertTrue(PriceFormatter.isNegative(-0.5, 0));
+        assertFalse(PriceFormatter.isNegative(Double.NaN, 2));
+        assertTrue(PriceFormatter.isNegative(Double.NEGATIVE_INFINITY, 2));
+    }
+
+    @Test
+    public void halves_roundAwayFromZero() {
+        // Exact in binary, so these are true halves
+        assertEquals("0.13", PriceFormatter.formatDecimal(0.125));
+        assertEquals("-0.13", PriceFormatter.formatDecimal(-0.125));
+        assertEquals("0.38", PriceFormatter.formatDecimal(0.375));
+        assertEquals("$2.51", PriceFormatter.formatPrice(2.505078125));
+    }
+
+    @Test
+    public void decimalHalves_roundUpAsWritten() {
+        // Not exact in binary; rounded as written, like String.format does
+        assertEquals("1.01", PriceFormatter.formatDecimal(1.005));
+        assertEquals("2.68", PriceFormatter.formatDecimal(2.675));
+        assertEquals("1.02", PriceFormatter.formatDecimal(1.015));
+        assertEquals("-1.01", PriceFormatter.formatDecimal(-1.005));
+        assertEquals("↓ -0.01%", PriceFormatter.formatChangeWithArrow(-0.005));
+    }
+
+    @Test
+    public void positiveValues_matchStringFormat() {
+        for (int thousandths = 0; thousandths < 200_000; thousandths++) {
+            double value = thousandths / 1000.0;
+            assertEquals(String.format(Locale.US, "%.2f", value), PriceFormatter.formatDecimal(value));
+        }
+    }
+
+    @Test
+    public void largeValues_keepEveryDigit() {
+        assertEquals("$1234567.89", PriceFormatter.formatPrice(1234567.891));
+        assertEquals("$999999999.99", PriceFormatter.formatPrice(999999999.99));
+        assertEquals("+$1000000000000.00", PriceFormatter.formatSignedPrice(1e12));
+        assertEquals("$-1000000000000.00", PriceFormatter.formatPrice(-1e12));
+    }
+
+    @Test
+    public void valuesBeyondLongRange_areStillPlain() {
+        assertEquals("$100000000000000000000.00", PriceFormatter.formatPrice(1e20));
+        assertEquals("$-100000000000000000000.00", PriceFormatter.formatPrice(-1e20));
+        assertEquals("100000000000000000000", PriceFormatter.formatShares(1e20));
+    }
+
+    @Test
+    public void nanAndInfinity_areWrittenAsIs() {
+        assertEquals("$NaN", PriceFormatter.formatPrice(Double.NaN));
+        assertEquals("NaN%", PriceFormatter.formatSignedPercent(Double.NaN));
+        assertEquals("↑ NaN%", PriceFormatter.formatChangeWithArrow(Double.NaN));
+        assertEquals("$Infinity", PriceFormatter.formatPrice(Double.POSITIVE_INFINITY));
+        assertEquals("$-Infinity", PriceFormatter.formatPrice(Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void wholeShares_haveNoDecimals() {
+        assertEquals("0", PriceFormatter.formatShares(0));
+        assertEquals("10", PriceFormatter.formatShares(10));
+        assertEquals("1000000", PriceFormatter.formatShares(1e6));
+    }
+
+    @Test
+    public void fractionalShares_haveTwoDecimals() {
+        assertEquals("2.50", PriceFormatter.formatShares(2.5));
+        assertEquals("0.33", PriceFormatter.formatShares(1.0 / 3));
+        assertEquals("0.01", PriceFormatter.formatShares(0.005));
+        // Fractional, but rounds to a whole number
+        assertEquals("3.00", PriceFormatter.formatShares(2.999));
+    }
+
+    @Test
+    public void reusedBuffer_doesNotLeakBetweenCalls() {
+        assertEquals("↓ -12.34%", PriceFormatter.formatChangeWithArrow(-12.34));
+        assertEquals("$1.00", PriceFormatter.formatPrice(1));
+        assertEquals("5", PriceFormatter.formatShares(5));
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.project.util;
+
+import com.example.project.model.CandleSeries;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TechnicalIndicators}: random sequences of new bars and live
+ * updates, checked after every step against the same indicator computed from scratch.
+ */
+public class TechnicalIndicatorsTest {
+
+    private static final int STEPS = 2_000;
+    private static final double TOLERANCE = 1e-6;
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    @Test
+    public void sma_matchesRecomputation() {
+        for (int period : new int[]{1, 2, 5, 20}) {
+            check(new TechnicalIndicators.Sma(period), bars -> new double[]{sma(closes(bars), period)}, period);
+        }
+    }
+
+    @Test
+    public void bollingerBands_matchRecomputation() {
+        for (int period : new int[]{1, 3, 20}) {
+            check(new TechnicalIndicators.BollingerBands(period, 2.0), bars -> bollinger(bars, period, 2.0), period);
+        }
+    }
+
+    @Test
+    public void ema_matchesRecomputation() {
+        for (int period : new int[]{1, 3, 12}) {
+            check(new TechnicalIndicators.Ema(period), bars -> new double[]{last(ema(closes(bars), period))}, period);
+        }
+    }
+
+    @Test
+    public void rsi_matchesRecomputation() {
+        for (int period : new int[]{1, 2, 14}) {
+            check(new TechnicalIndicators.Rsi(period), bars -> new double[]{rsi(closes(bars), period)}, period);
+        }
+    }
+
+    @Test
+    public void macd_matchesRecomputation() {
+        check(new TechnicalIndicators.Macd(), bars -> macd(closes(bars), 12, 26, 9), 1);
+        check(new TechnicalIndicators.Macd(2, 4, 3), bars -> macd(closes(bars), 2, 4, 3), 2);
+    }
+
+    @Test
+    public void vwap_matchesRecomputation() {
+        check(new TechnicalIndicators.Vwap(), TechnicalIndicatorsTest::vwap, 1);
+    }
+
+    @Test
+    public void compute_matchesIncrementalValues() {
+        List<Bar> bars = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            bars.add(Bar.random(random, i * 60L));
+        }
+        double[][] values = TechnicalIndicators.compute(toSeries(bars),
+                new TechnicalIndicators.BollingerBands(20, 2.0));
+        for (int i = 0; i < bars.size(); i++) {
+            double[] expected = bollinger(bars.subList(0, i + 1), 20, 2.0);
+            for (int output = 0; output < expected.length; output++) {
+                assertEquals(expected[output], values[output][i], TOLERANCE);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sma_rejectsZeroPeriod() {
+        new TechnicalIndicators.Sma(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bollingerBands_rejectZeroPeriod() {
+        new TechnicalIndicators.BollingerBands(0, 2.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bollingerBands_rejectNegativePeriod() {
+        new TechnicalIndicators.BollingerBands(-1, 2.0);
+    }
+
+    /**
+     * Feeds random new bars and updates of the last bar, comparing every output after each step
+     */
+    private static void check(TechnicalIndicators.Indicator indicator, Reference reference, long seed) {
+        Random random = new Random(seed);
+        List<Bar> bars = new ArrayList<>();
+        long timestamp = 1_700_000_000L;
+        for (int step = 0; step < STEPS; step++) {
+            if (bars.isEmpty() || random.nextInt(5) < 2) {
+                // Mostly minute bars, sometimes a jump into the next day
+                timestamp += random.nextInt(20) == 0 ? SECONDS_PER_DAY : 60;
+                Bar bar = Bar.random(random, timestamp);
+                bars.add(bar);
+                indicator.addBar(bar.timestamp, bar.high, bar.low, bar.close, bar.volume);
+            } else {
+                Bar bar = Bar.random(random, timestamp);
+                bars.set(bars.size() - 1, bar);
+                indicator.updateLastBar(bar.timestamp, bar.high, bar.low, bar.close, bar.volume);
+            }
+
+            assertEquals(bars.size(), indicator.getBarCount());
+            double[] expected = reference.compute(bars);
+            assertEquals(expected.length, indicator.getOutputCount());
+            for (int output = 0; output < expected.length; output++) {
+                assertEquals("step " + step + ", output " + output,
+                        expected[output], indicator.getValue(output), TOLERANCE);
+            }
+        }
+    }
+
+    private static double[] closes(List<Bar> bars) {
+        double[] closes = new double[bars.size()];
+        for (int i = 0; i < closes.length; i++) {
+            closes[i] = bars.get(i).close;
+        }
+        return closes;
+    }
+
+    private static double last(double[] values) {
+        return values.length == 0 ? Double.NaN : values[values.length - 1];
+    }
+
+    private static double sma(double[] closes, int period) {
+        if (closes.length < period) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (int i = closes.length - period; i < closes.length; i++) {
+            sum += closes[i];
+        }
+        return sum / period;
+    }
+
+    private static double[] bollinger(List<Bar> bars, int period, double width) {
+        double[] closes = closes(bars);
+        double mean = sma(closes, period);
+        if (Double.isNaN(mean)) {
+            return new double[]{Double.NaN, Double.NaN, Double.NaN};
+        }
+        double squares = 0;
+        for (int i = closes.length - period; i < closes.length; i++) {
+            squares += (closes[i] - mean) * (closes[i] - mean);
+        }
+        double offset = width * Math.sqrt(squares / period);
+        return new double[]{mean, mean + offset, mean - offset};
+    }
+
+    /**
+     * EMA of every prefix, seeded with the SMA of the first period values
+     */
+    private static double[] ema(double[] values, int period) {
+        double[] result = new double[values.length];
+        double alpha = 2.0 / (period + 1);
+        for (int i = 0; i < values.length; i++) {
+            if (i < period - 1) {
+                result[i] = Double.NaN;
+            } else if (i == period - 1) {
+                double sum = 0;
+                for (int j = 0; j < period; j++) {
+                    sum += values[j];
+                }
+                result[i] = sum / period;
+            } else {
+                result[i] = result[i - 1] + alpha * (values[i] - result[i - 1]);
+            }
+        }
+        return result;
+    }
+
+    private static double rsi(double[] closes, int period) {
+        int changes = closes.length - 1;
+        if (changes < period) {
+            return Double.NaN;
+        }
+        double averageGain = 0;
+        double averageLoss = 0;
+        for (int i = 1; i <= period; i++) {
+            averageGain += Math.max(closes[i] - closes[i - 1], 0);
+            averageLoss += Math.max(closes[i - 1] - closes[i], 0);
+        }
+        averageGain /= period;
+        averageLoss /= period;
+        for (int i = period + 1; i < closes.length; i++) {
+            averageGain = (averageGain * (period - 1) + Math.max(closes[i] - closes[i - 1], 0)) / period;
+            averageLoss = (averageLoss * (period - 1) + Math.max(closes[i - 1] - closes[i], 0)) / period;
+        }
+        return averageLoss == 0 ? 100 : 100 - 100 / (1 + averageGain / averageLoss);
+    }
+
+    private static double[] macd(double[] closes, int fastPeriod, int slowPeriod, int signalPeriod) {
+        double[] fast = ema(closes, fastPeriod);
+        double[] slow = ema(closes, slowPeriod);
+        // The signal EMA only sees bars where the MACD line exists
+        List<Double> lines = new ArrayList<>();
+        for (int i = 0; i < closes.length; i++) {
+            double line = fast[i] - slow[i];
+            if (!Double.isNaN(line)) {
+                lines.add(line);
+            }
+        }
+        double[] lineValues = new double[lines.size()];
+        for (int i = 0; i < lineValues.length; i++) {
+            lineValues[i] = lines.get(i);
+        }
+        double line = closes.length == 0 ? Double.NaN : last(fast) - last(slow);
+        double signal = last(ema(lineValues, signalPeriod));
+        return new double[]{line, signal, line - signal};
+    }
+
+    private static double[] vwap(List<Bar> bars) {
+        long day = Math.floorDiv(bars.get(bars.size() - 1).timestamp, SECONDS_PER_DAY);
+        double priceVolume = 0;
+        double volume = 0;
+        for (Bar bar : bars) {
+            if (Math.floorDiv(bar.timestamp, SECONDS_PER_DAY) == day) {
+                priceVolume += (bar.high + bar.low + bar.close) / 3 * bar.volume;
+                volume += bar.volume;
+            }
+        }
+        return new double[]{volume > 0 ? priceVolume / volume : Double.NaN};
+    }
+
+    private static CandleSeries toSeries(List<Bar> bars) {
+        int size = bars.size();
+        long[] timestamps = new long[size];
+        double[] high = new double[size];
+        double[] low = new double[size];
+        double[] close = new double[size];
+        double[] volume = new double[size];
+        for (int i = 0; i < size; i++) {
+            Bar bar = bars.get(i);
+            timestamps[i] = bar.timestamp;
+            high[i] = bar.high;
+            low[i] = bar.low;
+            close[i] = bar.close;
+            volume[i] = bar.volume;
+        }
+        return new CandleSeries(timestamps, close, high, low, close, volume, "ok");
+    }
+
+    private interface Reference {
+        double[] compute(List<Bar> bars);
+    }
+
+    private static class Bar {
+        final long timestamp;
+        final double high;
+        final double low;
+        final double close;
+        final double volume;
+
+        Bar(long timestamp, double high, double low, double close, double volume) {
+            this.timestamp = timestamp;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+            this.volume = volume;
+        }
+
+        static Bar random(Random random, long timestamp) {
+            double close = 100 + random.nextDouble() * 20;
+            // Repeated closes exercise the zero-loss and zero-variance paths
+            if (random.nextInt(10) == 0) {
+                close = 110;
+            }
+            double volume = random.nextInt(10) == 0 ? 0 : random.nextInt(10_000);
+            return new Bar(timestamp, close + random.nextDouble(), close - random.nextDouble(), close, volume);
+        }
+    }
+}